@@ -1,14 +1,61 @@
 package com.taohansen.dscatalog.config;
 
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 @Configuration
 public class AppConfig {
+
+    @Value("${catalog.security.password.encoder}")
+    private String encoderId;
+
+    @Value("${catalog.security.password.bcrypt-strength}")
+    private int bcryptStrength;
+
+    @Value("${catalog.security.password.hashing.threads}")
+    private int hashingThreads;
+
+    @Value("${catalog.security.password.hashing.queue-capacity}")
+    private int hashingQueueCapacity;
+
+    @Value("${catalog.security.password.hashing.timeout}")
+    private Duration hashingTimeout;
+
+    // new hashes are written as {encoderId}hash; a stored hash with another id or a lower cost is upgraded on login
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder(encoderId, encoders(bcryptStrength));
+        // hashes stored before the {id} prefix are plain bcrypt
+        encoder.setDefaultPasswordEncoderForMatches(new BCryptPasswordEncoder());
+        int threads = hashingThreads > 0 ? hashingThreads : Runtime.getRuntime().availableProcessors();
+        return new BoundedPasswordEncoder(encoder, threads, hashingQueueCapacity, hashingTimeout);
+    }
+
+    @Bean
+    public MeterBinder passwordHashingMetrics(PasswordEncoder passwordEncoder) {
+        return registry -> {
+            if (passwordEncoder instanceof BoundedPasswordEncoder bounded) {
+                new ExecutorServiceMetrics(bounded.getExecutor(), "passwordHashing", List.of()).bindTo(registry);
+            }
+        };
+    }
+
+    public static Map<String, PasswordEncoder> encoders(int bcryptStrength) {
+        Map<String, PasswordEncoder> encoders = new HashMap<>();
+        encoders.put("bcrypt", new BCryptPasswordEncoder(bcryptStrength));
+        encoders.put("pbkdf2", Pbkdf2PasswordEncoder.defaultsForSpringSecurity_v5_8());
+        return encoders;
     }
 }
@@ -0,0 +1,155 @@
+package com.taohansen.dscatalog.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import org.springframework.security.oauth2.core.AbstractOAuth2Token;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.security.oauth2.core.OAuth2DeviceCode;
+import org.springframework.security.oauth2.core.OAuth2RefreshToken;
+import org.springframework.security.oauth2.core.OAuth2UserCode;
+import org.springframework.security.oauth2.core.endpoint.OAuth2ParameterNames;
+import org.springframework.security.oauth2.core.oidc.OidcIdToken;
+import org.springframework.security.oauth2.core.oidc.endpoint.OidcParameterNames;
+import org.springframework.security.oauth2.server.authorization.OAuth2Authorization;
+import org.springframework.security.oauth2.server.authorization.OAuth2AuthorizationCode;
+import org.springframework.security.oauth2.server.authorization.OAuth2AuthorizationService;
+import org.springframework.security.oauth2.server.authorization.OAuth2TokenType;
+import org.springframework.util.Assert;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory authorization store holding at most {@code maxSize} authorizations. Each one expires with its
+ * longest-lived token, or after {@code tokenlessTtl} while it has none. Token lookups go through an index instead of
+ * scanning every authorization.
+ */
+public class BoundedOAuth2AuthorizationService implements OAuth2AuthorizationService {
+
+    private static final Map<String, Class<? extends AbstractOAuth2Token>> TOKEN_TYPES = Map.of(
+            OAuth2ParameterNames.CODE, OAuth2AuthorizationCode.class,
+            OAuth2ParameterNames.ACCESS_TOKEN, OAuth2AccessToken.class,
+            OAuth2ParameterNames.REFRESH_TOKEN, OAuth2RefreshToken.class,
+            OidcParameterNames.ID_TOKEN, OidcIdToken.class,
+            OAuth2ParameterNames.USER_CODE, OAuth2UserCode.class,
+            OAuth2ParameterNames.DEVICE_CODE, OAuth2DeviceCode.class);
+
+    private final Cache<String, OAuth2Authorization> authorizations;
+    private final Map<String, String> idsByToken = new ConcurrentHashMap<>();
+    private final Duration tokenlessTtl;
+
+    public BoundedOAuth2AuthorizationService(long maxSize, Duration tokenlessTtl) {
+        this.tokenlessTtl = tokenlessTtl;
+        this.authorizations = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new Expiry<String, OAuth2Authorization>() {
+                    @Override
+                    public long expireAfterCreate(String id, OAuth2Authorization authorization, long currentTime) {
+                        return timeToLive(authorization);
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String id, OAuth2Authorization authorization, long currentTime, long currentDuration) {
+                        return timeToLive(authorization);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String id, OAuth2Authorization authorization, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                // unindex on the removing thread, so a lookup never sees a token of an evicted authorization
+                .executor(Runnable::run)
+                .removalListener((String id, OAuth2Authorization authorization, RemovalCause cause) -> {
+                    if (authorization != null && cause != RemovalCause.REPLACED) {
+                        tokens(authorization).values().forEach(token -> idsByToken.remove(token, id));
+                    }
+                })
+                .recordStats()
+                .build();
+    }
+
+    @Override
+    public void save(OAuth2Authorization authorization) {
+        Assert.notNull(authorization, "authorization cannot be null");
+        Map<String, String> tokens = tokens(authorization);
+        tokens.values().forEach(token -> idsByToken.put(token, authorization.getId()));
+        OAuth2Authorization previous = authorizations.asMap().put(authorization.getId(), authorization);
+        if (previous != null) {
+            tokens(previous).values().stream()
+                    .filter(token -> !tokens.containsValue(token))
+                    .forEach(token -> idsByToken.remove(token, authorization.getId()));
+        }
+    }
+
+    @Override
+    public void remove(OAuth2Authorization authorization) {
+        Assert.notNull(authorization, "authorization cannot be null");
+        authorizations.invalidate(authorization.getId());
+    }
+
+    @Override
+    public OAuth2Authorization findById(String id) {
+        Assert.hasText(id, "id cannot be empty");
+        return authorizations.getIfPresent(id);
+    }
+
+    @Override
+    public OAuth2Authorization findByToken(String token, OAuth2TokenType tokenType) {
+        Assert.hasText(token, "token cannot be empty");
+        String id = idsByToken.get(token);
+        if (id == null) {
+            return null;
+        }
+        OAuth2Authorization authorization = authorizations.getIfPresent(id);
+        if (authorization == null) {
+            idsByToken.remove(token, id);
+            return null;
+        }
+        Map<String, String> tokens = tokens(authorization);
+        boolean matches = tokenType == null ? tokens.containsValue(token) : token.equals(tokens.get(tokenType.getValue()));
+        return matches ? authorization : null;
+    }
+
+    public Cache<String, OAuth2Authorization> getCache() {
+        return authorizations;
+    }
+
+    private long timeToLive(OAuth2Authorization authorization) {
+        Instant expiresAt = null;
+        for (Class<? extends AbstractOAuth2Token> type : TOKEN_TYPES.values()) {
+            OAuth2Authorization.Token<? extends AbstractOAuth2Token> token = authorization.getToken(type);
+            Instant tokenExpiresAt = token == null ? null : token.getToken().getExpiresAt();
+            if (tokenExpiresAt != null && (expiresAt == null || tokenExpiresAt.isAfter(expiresAt))) {
+                expiresAt = tokenExpiresAt;
+            }
+        }
+        if (expiresAt == null) {
+            return tokenlessTtl.toNanos();
+        }
+        return Math.max(0, Duration.between(Instant.now(), expiresAt).toNanos());
+    }
+
+    /**
+     * @return token values of the authorization keyed by token type, the OAuth2 state included
+     */
+    private static Map<String, String> tokens(OAuth2Authorization authorization) {
+        Map<String, String> tokens = new HashMap<>();
+        String state = authorization.getAttribute(OAuth2ParameterNames.STATE);
+        if (state != null) {
+            tokens.put(OAuth2ParameterNames.STATE, state);
+        }
+        TOKEN_TYPES.forEach((type, tokenClass) -> {
+            OAuth2Authorization.Token<? extends AbstractOAuth2Token> token = authorization.getToken(tokenClass);
+            if (token != null) {
+                tokens.put(type, token.getToken().getTokenValue());
+            }
+        });
+        return tokens;
+    }
+}
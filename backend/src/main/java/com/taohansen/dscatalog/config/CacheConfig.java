@@ -0,0 +1,75 @@
+package com.taohansen.dscatalog.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.taohansen.dscatalog.services.json.ProductJson;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.support.SimpleCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.List;
+
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    @Value("${catalog.cache.products.max-size}")
+    private long productsMaxSize;
+
+    @Value("${catalog.cache.products.ttl}")
+    private Duration productsTtl;
+
+    @Value("${catalog.cache.search.max-size}")
+    private long searchMaxSize;
+
+    @Value("${catalog.cache.search.ttl}")
+    private Duration searchTtl;
+
+    @Value("${catalog.cache.json.max-size}")
+    private DataSize jsonMaxSize;
+
+    @Value("${catalog.cache.json.ttl}")
+    private Duration jsonTtl;
+
+    @Value("${catalog.cache.users.max-size}")
+    private long usersMaxSize;
+
+    @Value("${catalog.cache.users.ttl}")
+    private Duration usersTtl;
+
+    @Bean
+    public CacheManager cacheManager() {
+        SimpleCacheManager cacheManager = new SimpleCacheManager();
+        cacheManager.setCaches(List.of(
+                new CaffeineCache("products", Caffeine.newBuilder()
+                        .maximumSize(productsMaxSize)
+                        .expireAfterWrite(productsTtl)
+                        .recordStats()
+                        .build()),
+                new CaffeineCache("productSearch", Caffeine.newBuilder()
+                        .maximumSize(searchMaxSize)
+                        .expireAfterWrite(searchTtl)
+                        .recordStats()
+                        .build()),
+                new CaffeineCache("productJson", Caffeine.newBuilder()
+                        .maximumWeight(jsonMaxSize.toBytes())
+                        .weigher((key, value) -> ((ProductJson) value).size())
+                        .expireAfterWrite(jsonTtl)
+                        .recordStats()
+                        .build()),
+                new CaffeineCache("userDetails", Caffeine.newBuilder()
+                        .maximumSize(usersMaxSize)
+                        .expireAfterWrite(usersTtl)
+                        .recordStats()
+                        .build(), false)));
+        cacheManager.afterPropertiesSet();
+        // puts and evictions are applied only after the surrounding transaction commits
+        return new TransactionAwareCacheManagerProxy(cacheManager);
+    }
+}
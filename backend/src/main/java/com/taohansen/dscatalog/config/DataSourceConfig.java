@@ -0,0 +1,46 @@
+package com.taohansen.dscatalog.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Duration;
+
+@Configuration
+@ConditionalOnProperty(name = "catalog.datasource.bulkhead.enabled", havingValue = "true")
+public class DataSourceConfig {
+
+    @Bean
+    public static BeanPostProcessor dataSourceBulkhead(Environment environment) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource dataSource) || bean instanceof BulkheadDataSource) {
+                    return bean;
+                }
+                return new BulkheadDataSource(dataSource,
+                        environment.getRequiredProperty("catalog.datasource.bulkhead.permits", Integer.class),
+                        environment.getRequiredProperty("catalog.datasource.bulkhead.timeout", Duration.class));
+            }
+        };
+    }
+
+    @Bean
+    public MeterBinder dataSourceBulkheadMetrics(DataSource dataSource) throws SQLException {
+        BulkheadDataSource bulkhead = dataSource.unwrap(BulkheadDataSource.class);
+        return registry -> {
+            Gauge.builder("catalog.datasource.bulkhead.available", bulkhead, BulkheadDataSource::getAvailablePermits)
+                    .description("Connection permits not in use")
+                    .register(registry);
+            Gauge.builder("catalog.datasource.bulkhead.queued", bulkhead, BulkheadDataSource::getQueueLength)
+                    .description("Threads waiting for a connection permit")
+                    .register(registry);
+        };
+    }
+}
@@ -0,0 +1,16 @@
+package com.taohansen.dscatalog.config;
+
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class JacksonConfig {
+
+    // DTOs with a @JsonFilter are serialized in full unless the response supplies the filter
+    @Bean
+    public Jackson2ObjectMapperBuilderCustomizer jsonFilters() {
+        return builder -> builder.filters(new SimpleFilterProvider().setFailOnUnknownId(false));
+    }
+}
@@ -0,0 +1,59 @@
+package com.taohansen.dscatalog.config;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+import java.time.Duration;
+
+/**
+ * Non-blocking connections for the reactive read API, next to the JDBC pool used by JPA. The pool is deliberately
+ * not a bean: a {@code ConnectionFactory} in the context switches off the JDBC DataSource auto-configuration.
+ */
+@Configuration
+public class R2dbcConfig {
+
+    @Value("${catalog.r2dbc.url}")
+    private String url;
+
+    @Value("${catalog.r2dbc.username}")
+    private String username;
+
+    @Value("${catalog.r2dbc.password}")
+    private String password;
+
+    @Value("${catalog.r2dbc.pool.max-size}")
+    private int maxSize;
+
+    @Value("${catalog.r2dbc.pool.max-acquire-time}")
+    private Duration maxAcquireTime;
+
+    private ConnectionPool pool;
+
+    @Bean
+    public DatabaseClient reactiveDatabaseClient() {
+        ConnectionFactoryOptions options = ConnectionFactoryOptions.parse(url).mutate()
+                .option(ConnectionFactoryOptions.USER, username)
+                .option(ConnectionFactoryOptions.PASSWORD, password)
+                .build();
+        pool = new ConnectionPool(ConnectionPoolConfiguration.builder(ConnectionFactories.get(options))
+                .initialSize(0)
+                .maxSize(maxSize)
+                .maxAcquireTime(maxAcquireTime)
+                .build());
+        return DatabaseClient.create(pool);
+    }
+
+    @PreDestroy
+    void close() {
+        if (pool != null) {
+            pool.dispose();
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.taohansen.dscatalog.config;
+
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.source.JWKSource;
+import com.nimbusds.jose.proc.SecurityContext;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Caches the keys returned by the loader for {@code ttl}: the first key signs, all of them verify and are published.
+ * A token signed with a key id missing from the cache reloads it early, so a key rotated in by another node verifies
+ * right away.
+ */
+public class RotatingJwkSource implements JWKSource<SecurityContext> {
+
+    private static final Duration MIN_RELOAD_INTERVAL = Duration.ofSeconds(5);
+
+    private final Supplier<List<RSAKey>> loader;
+    private final Duration ttl;
+    private final Duration minReloadInterval;
+    private final ReentrantLock reloading = new ReentrantLock();
+    private volatile Snapshot snapshot;
+
+    public RotatingJwkSource(Supplier<List<RSAKey>> loader, Duration ttl) {
+        this(loader, ttl, MIN_RELOAD_INTERVAL);
+    }
+
+    RotatingJwkSource(Supplier<List<RSAKey>> loader, Duration ttl, Duration minReloadInterval) {
+        this.loader = loader;
+        this.ttl = ttl;
+        this.minReloadInterval = minReloadInterval;
+    }
+
+    @Override
+    public List<JWK> get(JWKSelector jwkSelector, SecurityContext context) {
+        List<JWK> keys = jwkSelector.select(current().keys());
+        if (keys.isEmpty() && !jwkSelector.getMatcher().getKeyIDs().isEmpty()) {
+            keys = jwkSelector.select(reloadIfOlderThan(minReloadInterval).keys());
+        }
+        return keys;
+    }
+
+    /**
+     * @return source of the current signing key only, as encoders reject more than one matching key
+     */
+    public JWKSource<SecurityContext> signingKey() {
+        return (jwkSelector, context) -> jwkSelector.select(new JWKSet(current().signing()));
+    }
+
+    public void refresh() {
+        reloadIfOlderThan(Duration.ZERO);
+    }
+
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            return reloadIfOlderThan(ttl);
+        }
+        // one caller reloads an expired snapshot, the others keep using it meanwhile
+        if (current.isOlderThan(ttl) && reloading.tryLock()) {
+            try {
+                snapshot = current = load();
+            } finally {
+                reloading.unlock();
+            }
+        }
+        return current;
+    }
+
+    private Snapshot reloadIfOlderThan(Duration age) {
+        reloading.lock();
+        try {
+            Snapshot current = snapshot;
+            if (current == null || current.isOlderThan(age)) {
+                snapshot = current = load();
+            }
+            return current;
+        } finally {
+            reloading.unlock();
+        }
+    }
+
+    private Snapshot load() {
+        List<RSAKey> keys = loader.get();
+        if (keys.isEmpty()) {
+            throw new IllegalStateException("No JWK signing key available");
+        }
+        return new Snapshot(keys.get(0), new JWKSet(new ArrayList<>(keys)), Instant.now());
+    }
+
+    private record Snapshot(RSAKey signing, JWKSet keys, Instant loadedAt) {
+
+        boolean isOlderThan(Duration age) {
+            return !loadedAt.plus(age).isAfter(Instant.now());
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.taohansen.dscatalog.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.scheduling.annotation.AsyncAnnotationBeanPostProcessor;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * With {@code catalog.threads.virtual=true}, Tomcat requests and {@code @Async} methods run on virtual threads
+ * instead of the platform thread pools. Requires a Java 21 runtime.
+ */
+@Configuration
+@EnableAsync
+@EnableScheduling
+public class ThreadConfig {
+
+    @Configuration
+    @ConditionalOnProperty(name = "catalog.threads.virtual", havingValue = "true")
+    static class VirtualThreads {
+
+        @Bean
+        public TomcatProtocolHandlerCustomizer<?> virtualThreadsProtocolHandlerCustomizer() {
+            return protocolHandler -> protocolHandler.setExecutor(newVirtualThreadPerTaskExecutor());
+        }
+
+        @Bean(name = {TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME,
+                AsyncAnnotationBeanPostProcessor.DEFAULT_TASK_EXECUTOR_BEAN_NAME})
+        public AsyncTaskExecutor applicationTaskExecutor() {
+            return new TaskExecutorAdapter(newVirtualThreadPerTaskExecutor());
+        }
+    }
+
+    // the build targets Java 17 whatever JDK runs it, so the Java 21 factory is looked up at runtime
+    static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("catalog.threads.virtual=true requires a Java 21 runtime, running on "
+                    + Runtime.version(), e);
+        }
+    }
+}
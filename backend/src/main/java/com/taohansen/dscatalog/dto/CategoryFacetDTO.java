@@ -0,0 +1,23 @@
+package com.taohansen.dscatalog.dto;
+
+import com.taohansen.dscatalog.entities.Category;
+
+public class CategoryFacetDTO extends CategoryDTO {
+    private Long count;
+
+    public CategoryFacetDTO() {
+    }
+
+    public CategoryFacetDTO(Category entity, Long count) {
+        super(entity);
+        this.count = count;
+    }
+
+    public Long getCount() {
+        return count;
+    }
+
+    public void setCount(Long count) {
+        this.count = count;
+    }
+}
@@ -0,0 +1,19 @@
+package com.taohansen.dscatalog.dto;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+
+import java.util.List;
+
+public class FacetedPageDTO<T> extends PageImpl<T> {
+    private final List<CategoryFacetDTO> facets;
+
+    public FacetedPageDTO(Page<T> page, List<CategoryFacetDTO> facets) {
+        super(page.getContent(), page.getPageable(), page.getTotalElements());
+        this.facets = facets;
+    }
+
+    public List<CategoryFacetDTO> getFacets() {
+        return facets;
+    }
+}
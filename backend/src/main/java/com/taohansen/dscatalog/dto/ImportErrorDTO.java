@@ -0,0 +1,30 @@
+package com.taohansen.dscatalog.dto;
+
+public class ImportErrorDTO {
+    private Long row;
+    private String message;
+
+    public ImportErrorDTO() {
+    }
+
+    public ImportErrorDTO(Long row, String message) {
+        this.row = row;
+        this.message = message;
+    }
+
+    public Long getRow() {
+        return row;
+    }
+
+    public void setRow(Long row) {
+        this.row = row;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+}
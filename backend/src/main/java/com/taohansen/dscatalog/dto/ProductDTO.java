@@ -1,7 +1,12 @@
 package com.taohansen.dscatalog.dto;
 
+import com.fasterxml.jackson.annotation.JsonFilter;
 import com.taohansen.dscatalog.entities.Category;
 import com.taohansen.dscatalog.entities.Product;
+import com.taohansen.dscatalog.entities.ProductView;
+import com.taohansen.dscatalog.projections.ProductSearchProjection;
+import com.taohansen.dscatalog.services.search.ProductFields;
+import com.taohansen.dscatalog.util.Utils;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.PastOrPresent;
 import jakarta.validation.constraints.Positive;
@@ -13,6 +18,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
 
+@JsonFilter(ProductFields.FILTER)
 public class ProductDTO {
     private Long id;
     @Size(min = 3, max = 20, message = "O nome deve ter entre 3 e 20 caracteres")
@@ -54,6 +60,26 @@ public class ProductDTO {
         categories.forEach(cat -> this.categories.add(new CategoryDTO(cat)));
     }
 
+    public ProductDTO(ProductView view) {
+        id = view.getId();
+        name = view.getName();
+        description = view.getDescription();
+        price = view.getPrice();
+        imgUrl = view.getImgUrl();
+        date = view.getDate();
+        categories.addAll(Utils.parseCategories(view.getCategories()));
+    }
+
+    public ProductDTO(ProductSearchProjection projection) {
+        id = projection.getId();
+        name = projection.getName();
+        description = projection.getDescription();
+        price = projection.getPrice();
+        imgUrl = projection.getImgUrl();
+        date = projection.getDate();
+        categories.addAll(Utils.parseCategories(projection.getCategories()));
+    }
+
     public Long getId() {
         return id;
     }
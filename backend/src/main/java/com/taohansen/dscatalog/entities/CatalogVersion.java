@@ -0,0 +1,40 @@
+package com.taohansen.dscatalog.entities;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+@Entity
+@Table(name = "tb_catalog_version")
+public class CatalogVersion {
+
+    public static final long ID = 1L;
+
+    @Id
+    private Long id;
+    @Column(nullable = false)
+    private Long version;
+    @Column(columnDefinition = "TIMESTAMP WITHOUT TIME ZONE")
+    private Instant updatedAt;
+
+    public CatalogVersion() {
+    }
+
+    public CatalogVersion(Long id, Long version, Instant updatedAt) {
+        this.id = id;
+        this.version = version;
+        this.updatedAt = updatedAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+}
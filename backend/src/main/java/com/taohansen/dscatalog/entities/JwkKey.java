@@ -0,0 +1,56 @@
+package com.taohansen.dscatalog.entities;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/**
+ * RSA key pair signing and verifying access tokens, shared by every node. The newest key without an expiration
+ * signs; retired keys keep verifying until they expire.
+ */
+@Entity
+@Table(name = "tb_jwk_key", indexes = {
+        @Index(name = "idx_jwk_key_expires_at", columnList = "expiresAt")
+})
+public class JwkKey {
+
+    @Id
+    @Column(length = 64)
+    private String id;
+    // private JWK as JSON, encrypted with the configured password and salt
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String jwk;
+    @Column(nullable = false, columnDefinition = "TIMESTAMP WITHOUT TIME ZONE")
+    private Instant createdAt;
+    @Column(columnDefinition = "TIMESTAMP WITHOUT TIME ZONE")
+    private Instant expiresAt;
+
+    public JwkKey() {
+    }
+
+    public JwkKey(String id, String jwk, Instant createdAt) {
+        this.id = id;
+        this.jwk = jwk;
+        this.createdAt = createdAt;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getJwk() {
+        return jwk;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(Instant expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+}
@@ -4,25 +4,31 @@ import jakarta.persistence.*;
 
 import java.time.Instant;
 
+/**
+ * Password recovery token. Only the SHA-256 of the token is stored; a used token is expired on the spot.
+ */
 @Entity
-@Table(name = "tb_password_recover")
+@Table(name = "tb_password_recover", indexes = {
+        @Index(name = "idx_password_recover_token_hash", columnList = "tokenHash", unique = true),
+        @Index(name = "idx_password_recover_expiration", columnList = "expiration")
+})
 public class PasswordRecover {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
-    @Column(nullable = false)
-    private String token;
+    @Column(nullable = false, length = 64)
+    private String tokenHash;
     @Column(nullable = false)
     private String email;
-    @Column(nullable = false)
+    @Column(nullable = false, columnDefinition = "TIMESTAMP WITHOUT TIME ZONE")
     private Instant expiration;
 
     public PasswordRecover() {
     }
 
-    public PasswordRecover(Long id, String token, String email, Instant expiration) {
+    public PasswordRecover(Long id, String tokenHash, String email, Instant expiration) {
         this.id = id;
-        this.token = token;
+        this.tokenHash = tokenHash;
         this.email = email;
         this.expiration = expiration;
     }
@@ -35,12 +41,12 @@ public class PasswordRecover {
         this.id = id;
     }
 
-    public String getToken() {
-        return token;
+    public String getTokenHash() {
+        return tokenHash;
     }
 
-    public void setToken(String token) {
-        this.token = token;
+    public void setTokenHash(String tokenHash) {
+        this.tokenHash = tokenHash;
     }
 
     public String getEmail() {
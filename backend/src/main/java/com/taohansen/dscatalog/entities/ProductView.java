@@ -0,0 +1,80 @@
+package com.taohansen.dscatalog.entities;
+
+import com.taohansen.dscatalog.projections.IdProjection;
+import jakarta.persistence.*;
+import org.hibernate.annotations.Immutable;
+
+import java.time.Instant;
+
+/**
+ * Read model of a product with its categories inlined, as "id CHR(31) name" pairs joined by CHR(30).
+ * Rows are written only through native statements in {@code ProductViewRepository}.
+ */
+@Entity
+@Immutable
+@Table(name = "tb_product_view", indexes = {
+        @Index(name = "idx_product_view_name_id", columnList = "name, id")
+})
+public class ProductView implements IdProjection<Long> {
+
+    @Id
+    private Long id;
+    private String name;
+    @Column(columnDefinition = "TEXT")
+    private String description;
+    private Double price;
+    private String imgUrl;
+    @Column(columnDefinition = "TIMESTAMP WITHOUT TIME ZONE")
+    private Instant date;
+    @Column(columnDefinition = "TEXT")
+    private String categories;
+    // copied from the product, so a stale view can be told apart at startup
+    @Column(columnDefinition = "TIMESTAMP WITHOUT TIME ZONE")
+    private Instant updatedAt;
+
+    public ProductView() {
+    }
+
+    public ProductView(Long id, String name, String description, Double price, String imgUrl, Instant date, String categories) {
+        this.id = id;
+        this.name = name;
+        this.description = description;
+        this.price = price;
+        this.imgUrl = imgUrl;
+        this.date = date;
+        this.categories = categories;
+    }
+
+    @Override
+    public Long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public Double getPrice() {
+        return price;
+    }
+
+    public String getImgUrl() {
+        return imgUrl;
+    }
+
+    public Instant getDate() {
+        return date;
+    }
+
+    public String getCategories() {
+        return categories;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+}
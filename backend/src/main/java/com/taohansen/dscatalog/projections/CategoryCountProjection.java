@@ -0,0 +1,6 @@
+package com.taohansen.dscatalog.projections;
+
+public interface CategoryCountProjection {
+    Long getCategoryId();
+    Long getTotal();
+}
@@ -0,0 +1,8 @@
+package com.taohansen.dscatalog.projections;
+
+import java.time.Instant;
+
+public interface ModifiedProjection {
+    Instant getCreatedAt();
+    Instant getUpdatedAt();
+}
@@ -0,0 +1,5 @@
+package com.taohansen.dscatalog.projections;
+
+public interface ProductCategoryProjection extends ProductProjection {
+    Long getCategoryId();
+}
@@ -0,0 +1,7 @@
+package com.taohansen.dscatalog.projections;
+
+import java.time.Instant;
+
+public interface ProductModifiedProjection extends ModifiedProjection {
+    Instant getCategoriesModifiedAt();
+}
@@ -0,0 +1,12 @@
+package com.taohansen.dscatalog.projections;
+
+import java.time.Instant;
+
+public interface ProductSearchProjection extends ProductProjection {
+    String getDescription();
+    Double getPrice();
+    String getImgUrl();
+    Instant getDate();
+    Long getTotal();
+    String getCategories();
+}
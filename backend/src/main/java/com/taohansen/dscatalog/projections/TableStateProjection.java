@@ -0,0 +1,9 @@
+package com.taohansen.dscatalog.projections;
+
+import java.time.Instant;
+
+public interface TableStateProjection {
+    Long getTotal();
+    Long getMaxId();
+    Instant getMaxUpdatedAt();
+}
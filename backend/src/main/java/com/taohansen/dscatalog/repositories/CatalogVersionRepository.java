@@ -0,0 +1,23 @@
+package com.taohansen.dscatalog.repositories;
+
+import com.taohansen.dscatalog.entities.CatalogVersion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Optional;
+
+@Repository
+public interface CatalogVersionRepository extends JpaRepository<CatalogVersion, Long> {
+
+    // read as values, so an increment earlier in the same persistence context is visible
+    @Query("SELECT new com.taohansen.dscatalog.entities.CatalogVersion(v.id, v.version, v.updatedAt) FROM CatalogVersion v WHERE v.id = :id")
+    Optional<CatalogVersion> findCurrent(@Param("id") Long id);
+
+    @Modifying
+    @Query("UPDATE CatalogVersion v SET v.version = v.version + 1, v.updatedAt = :now WHERE v.id = :id")
+    int increment(@Param("id") Long id, @Param("now") Instant now);
+}
@@ -1,9 +1,29 @@
 package com.taohansen.dscatalog.repositories;
 
+import com.taohansen.dscatalog.projections.ModifiedProjection;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 import org.springframework.data.jpa.repository.JpaRepository;
 import com.taohansen.dscatalog.entities.Category;
 
+import java.util.List;
+import java.util.Optional;
+
 @Repository
 public interface CategoryRepository  extends JpaRepository<Category, Long> {
+
+    @Override
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    List<Category> findAll();
+
+    @Override
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    List<Category> findAll(Sort sort);
+
+    @Query("SELECT obj.createdAt AS createdAt, obj.updatedAt AS updatedAt FROM Category obj WHERE obj.id = :id")
+    Optional<ModifiedProjection> findModifiedById(Long id);
 }
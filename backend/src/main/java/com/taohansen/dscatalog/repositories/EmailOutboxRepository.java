@@ -0,0 +1,26 @@
+package com.taohansen.dscatalog.repositories;
+
+import com.taohansen.dscatalog.entities.EmailOutbox;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface EmailOutboxRepository extends JpaRepository<EmailOutbox, Long> {
+
+    // -2 is SKIP LOCKED: concurrent dispatchers claim disjoint batches instead of waiting on each other
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT obj FROM EmailOutbox obj WHERE obj.status = :status AND obj.nextAttemptAt <= :now ORDER BY obj.nextAttemptAt")
+    List<EmailOutbox> findDue(EmailOutbox.Status status, Instant now, Pageable pageable);
+
+    long countByStatus(EmailOutbox.Status status);
+}
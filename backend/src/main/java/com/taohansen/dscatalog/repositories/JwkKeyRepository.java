@@ -0,0 +1,37 @@
+package com.taohansen.dscatalog.repositories;
+
+import com.taohansen.dscatalog.entities.JwkKey;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface JwkKeyRepository extends JpaRepository<JwkKey, String> {
+
+    @Query("SELECT obj FROM JwkKey obj WHERE obj.expiresAt IS NULL OR obj.expiresAt > :now ORDER BY obj.createdAt DESC")
+    List<JwkKey> findValid(Instant now);
+
+    // locked, so that nodes rotating at the same time do it one after the other
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT obj FROM JwkKey obj WHERE obj.expiresAt IS NULL ORDER BY obj.createdAt DESC")
+    List<JwkKey> findSigningForUpdate();
+
+    // a plain insert: save() would merge into a row another node inserted with the same id
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "tb_jwk_key"))
+    @Query(nativeQuery = true, value = "INSERT INTO tb_jwk_key (id, jwk, created_at) VALUES (:id, :jwk, :createdAt)")
+    int insert(String id, String jwk, Instant createdAt);
+
+    @Modifying
+    @Query("DELETE FROM JwkKey obj WHERE obj.expiresAt <= :now")
+    int deleteExpired(Instant now);
+}
@@ -1,17 +1,39 @@
 package com.taohansen.dscatalog.repositories;
 
 import com.taohansen.dscatalog.entities.PasswordRecover;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.time.Instant;
-import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface PasswordRecoverRepository extends JpaRepository<PasswordRecover, Long> {
 
-    @Query("SELECT obj FROM PasswordRecover obj WHERE obj.token = :token AND obj.expiration > :now")
-    List<PasswordRecover> searchValidTokens(String token, Instant now);
+    /**
+     * Expires the token if it is still valid and returns the number of rows changed: of concurrent calls with the same
+     * token, only one sees 1. The used token gets the epoch as expiration, which no caller's clock can be behind.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("""
+            UPDATE PasswordRecover obj SET obj.expiration = :consumed
+            WHERE obj.tokenHash = :tokenHash AND obj.expiration > :now
+            """)
+    int consumeToken(String tokenHash, Instant now, Instant consumed);
 
+    Optional<PasswordRecover> findByTokenHash(String tokenHash);
+
+    @Modifying(flushAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "tb_password_recover"))
+    @Query(nativeQuery = true, value = """
+            DELETE FROM tb_password_recover WHERE id IN (
+                SELECT id FROM tb_password_recover WHERE expiration <= :now LIMIT :limit
+            )
+            """)
+    int deleteExpired(Instant now, int limit);
 }
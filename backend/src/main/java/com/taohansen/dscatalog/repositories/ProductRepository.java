@@ -1,17 +1,27 @@
 package com.taohansen.dscatalog.repositories;
 
 import com.taohansen.dscatalog.entities.Product;
+import com.taohansen.dscatalog.projections.CategoryCountProjection;
+import com.taohansen.dscatalog.projections.ProductCategoryProjection;
+import com.taohansen.dscatalog.projections.ProductModifiedProjection;
 import com.taohansen.dscatalog.projections.ProductProjection;
+import com.taohansen.dscatalog.projections.ProductSearchProjection;
+import com.taohansen.dscatalog.projections.TableStateProjection;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long> {
+public interface ProductRepository extends JpaRepository<Product, Long>, ProductRepositoryCustom {
     @Query(nativeQuery = true, value = """
             SELECT * FROM(
             SELECT DISTINCT tb_product.id, tb_product.name
@@ -32,6 +42,57 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
             """)
     Page<ProductProjection> searchProducts(List<Long> categoryIds, String name, Pageable pageable);
 
+    @Query(nativeQuery = true, value = """
+            SELECT tb_product_category.category_id AS categoryId, COUNT(*) AS total
+            FROM tb_product_category
+            INNER JOIN tb_product ON tb_product.id = tb_product_category.product_id
+            WHERE LOWER(tb_product.name) LIKE LOWER(CONCAT('%', :name, '%'))
+            GROUP BY tb_product_category.category_id
+            """)
+    List<CategoryCountProjection> countByCategory(String name);
+
     @Query("SELECT obj FROM Product obj JOIN FETCH obj.categories WHERE obj IN :productIds")
         List<Product> searchProductsWithCategories(List<Long> productIds);
+
+    @Query(nativeQuery = true, value = """
+            SELECT tb_product.id, tb_product.name, tb_product_category.category_id AS categoryId
+            FROM tb_product
+            LEFT JOIN tb_product_category ON tb_product.id = tb_product_category.product_id
+            """)
+    List<ProductCategoryProjection> searchProductCategories();
+
+    @Query(nativeQuery = true, value = """
+            SELECT tb_product.id, tb_product.name, tb_product_category.category_id AS categoryId
+            FROM tb_product
+            LEFT JOIN tb_product_category ON tb_product.id = tb_product_category.product_id
+            WHERE tb_product.id = :id
+            """)
+    List<ProductCategoryProjection> searchProductCategoriesById(Long id);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query(nativeQuery = true, value = """
+            SELECT tb_product.id, tb_product.name, tb_product.description, tb_product.price,
+            tb_product.img_url AS imgUrl, tb_product.date, (
+                SELECT STRING_AGG(CONCAT(tb_category.id, CHR(31), tb_category.name), CHR(30) ORDER BY tb_category.id)
+                FROM tb_product_category
+                INNER JOIN tb_category ON tb_category.id = tb_product_category.category_id
+                WHERE tb_product_category.product_id = tb_product.id
+            ) AS categories
+            FROM tb_product
+            ORDER BY tb_product.id
+            """)
+    Stream<ProductSearchProjection> streamProducts();
+
+    @Query("""
+            SELECT obj.createdAt AS createdAt, obj.updatedAt AS updatedAt,
+            MAX(COALESCE(cat.updatedAt, cat.createdAt)) AS categoriesModifiedAt
+            FROM Product obj
+            LEFT JOIN obj.categories cat
+            WHERE obj.id = :id
+            GROUP BY obj.id, obj.createdAt, obj.updatedAt
+            """)
+    Optional<ProductModifiedProjection> findModifiedById(Long id);
+
+    @Query("SELECT COUNT(obj) AS total, MAX(obj.id) AS maxId, MAX(obj.updatedAt) AS maxUpdatedAt FROM Product obj")
+    TableStateProjection findState();
 }
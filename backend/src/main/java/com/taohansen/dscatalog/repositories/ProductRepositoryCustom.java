@@ -0,0 +1,19 @@
+package com.taohansen.dscatalog.repositories;
+
+import com.taohansen.dscatalog.dto.ProductDTO;
+import com.taohansen.dscatalog.services.search.CategoryFilter;
+import com.taohansen.dscatalog.services.search.ProductCursor;
+import com.taohansen.dscatalog.services.search.ProductFields;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface ProductRepositoryCustom {
+    List<Long> seekProducts(Long[] productIds, CategoryFilter categories, String name, ProductCursor cursor, int limit);
+
+    Page<ProductDTO> searchProductFields(ProductFields fields, Long[] productIds, CategoryFilter categories, String name, Pageable pageable);
+
+    Optional<ProductDTO> findProductFieldsById(ProductFields fields, Long id);
+}
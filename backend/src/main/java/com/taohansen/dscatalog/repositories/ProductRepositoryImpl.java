@@ -0,0 +1,229 @@
+package com.taohansen.dscatalog.repositories;
+
+import com.taohansen.dscatalog.dto.ProductDTO;
+import com.taohansen.dscatalog.services.exceptions.BadRequestException;
+import com.taohansen.dscatalog.services.search.CategoryFilter;
+import com.taohansen.dscatalog.services.search.ProductCursor;
+import com.taohansen.dscatalog.services.search.ProductFields;
+import com.taohansen.dscatalog.util.Utils;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import org.hibernate.query.NativeQuery;
+import org.hibernate.type.BasicTypeReference;
+import org.hibernate.type.StandardBasicTypes;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+public class ProductRepositoryImpl implements ProductRepositoryCustom {
+
+    private static final Map<String, String> COLUMNS = Map.of(
+            "id", "tb_product.id",
+            "name", "tb_product.name",
+            "description", "tb_product.description",
+            "price", "tb_product.price",
+            "imgUrl", "tb_product.img_url",
+            "date", "tb_product.date",
+            "categories", """
+                    (SELECT STRING_AGG(CONCAT(tb_category.id, CHR(31), tb_category.name), CHR(30) ORDER BY tb_category.id)
+                    FROM tb_product_category
+                    INNER JOIN tb_category ON tb_category.id = tb_product_category.category_id
+                    WHERE tb_product_category.product_id = tb_product.id)""");
+
+    private static final Map<String, BasicTypeReference<?>> TYPES = Map.of(
+            "id", StandardBasicTypes.LONG,
+            "name", StandardBasicTypes.STRING,
+            "description", StandardBasicTypes.STRING,
+            "price", StandardBasicTypes.DOUBLE,
+            "imgUrl", StandardBasicTypes.STRING,
+            "date", StandardBasicTypes.INSTANT,
+            "categories", StandardBasicTypes.STRING);
+
+    private static final String SEARCH_CONDITION = " WHERE LOWER(tb_product.name) LIKE LOWER(CONCAT('%', :name, '%'))";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Long> seekProducts(Long[] productIds, CategoryFilter categories, String name, ProductCursor cursor, int limit) {
+        // the raw column keeps the (name, id) and (price, id) indexes usable; nulls sort as the largest value, as in
+        // PostgreSQL's default, so an ascending walk ends with them and a descending one starts with them
+        String key = cursor.isPriceSort() ? "tb_product.price" : "tb_product.name";
+        String direction = cursor.isDescending() ? "DESC NULLS FIRST" : "ASC NULLS LAST";
+        String operator = cursor.isDescending() ? "<" : ">";
+
+        StringBuilder sql = new StringBuilder("""
+                SELECT tb_product.id FROM tb_product
+                WHERE LOWER(tb_product.name) LIKE LOWER(CONCAT('%', :name, '%'))""");
+        appendCategoryCondition(sql, productIds, categories);
+        if (!cursor.isStart()) {
+            if (cursor.getLastValue() == null) {
+                // within the nulls only the id moves on; descending, every non-null row is still ahead
+                sql.append(" AND (").append(key).append(" IS NULL AND tb_product.id ").append(operator).append(" :lastId");
+                sql.append(cursor.isDescending() ? " OR " + key + " IS NOT NULL)" : ")");
+            } else {
+                sql.append(" AND ((").append(key).append(", tb_product.id) ").append(operator).append(" (:lastValue, :lastId)");
+                sql.append(cursor.isDescending() ? ")" : " OR " + key + " IS NULL)");
+            }
+        }
+        sql.append(" ORDER BY ").append(key).append(" ").append(direction).append(", tb_product.id ").append(cursor.isDescending() ? "DESC" : "ASC");
+
+        Query query = entityManager.createNativeQuery(sql.toString());
+        query.setParameter("name", name);
+        setCategoryParameters(query, productIds, categories);
+        if (!cursor.isStart()) {
+            if (cursor.getLastValue() != null) {
+                query.setParameter("lastValue", cursor.isPriceSort() ? Double.valueOf(cursor.getLastValue()) : cursor.getLastValue());
+            }
+            query.setParameter("lastId", cursor.getLastId());
+        }
+        List<?> ids = query.setMaxResults(limit).getResultList();
+        return ids.stream().map(id -> ((Number) id).longValue()).toList();
+    }
+
+    @Override
+    public Page<ProductDTO> searchProductFields(ProductFields fields, Long[] productIds, CategoryFilter categories, String name, Pageable pageable) {
+        StringBuilder condition = new StringBuilder(SEARCH_CONDITION);
+        appendCategoryCondition(condition, productIds, categories);
+
+        StringBuilder sql = new StringBuilder("SELECT ").append(selectList(fields)).append(", COUNT(*) OVER() AS total FROM tb_product")
+                .append(condition).append(orderBy(pageable.getSort()));
+        NativeQuery<?> query = nativeQuery(sql.toString(), fields);
+        query.addScalar("total", StandardBasicTypes.LONG);
+        query.setParameter("name", name);
+        setCategoryParameters(query, productIds, categories);
+        if (pageable.isPaged()) {
+            query.setFirstResult(Math.toIntExact(pageable.getOffset())).setMaxResults(pageable.getPageSize());
+        }
+
+        List<ProductDTO> content = new ArrayList<>();
+        long total = 0L;
+        for (Object row : query.getResultList()) {
+            Object[] values = (Object[]) row;
+            content.add(toDto(fields, values));
+            total = (Long) values[values.length - 1];
+        }
+        if (content.isEmpty() && pageable.isPaged() && pageable.getOffset() > 0) {
+            Query count = entityManager.createNativeQuery("SELECT COUNT(*) FROM tb_product" + condition);
+            count.setParameter("name", name);
+            setCategoryParameters(count, productIds, categories);
+            total = ((Number) count.getSingleResult()).longValue();
+        }
+        return new PageImpl<>(content, pageable, total);
+    }
+
+    @Override
+    public Optional<ProductDTO> findProductFieldsById(ProductFields fields, Long id) {
+        String sql = "SELECT " + selectList(fields) + " FROM tb_product WHERE tb_product.id = :id";
+        NativeQuery<?> query = nativeQuery(sql, fields);
+        query.setParameter("id", id);
+        return query.getResultList().stream()
+                .map(row -> toDto(fields, row instanceof Object[] values ? values : new Object[]{row}))
+                .findFirst();
+    }
+
+    /**
+     * Restricts tb_product to the given ids or, when there are none, to categorized products matching the filter.
+     */
+    private static void appendCategoryCondition(StringBuilder sql, Long[] productIds, CategoryFilter categories) {
+        if (productIds != null) {
+            sql.append(" AND tb_product.id = ANY(:productIds)");
+            return;
+        }
+        if (categories.getAnyOf().isEmpty()) {
+            sql.append(" AND EXISTS (SELECT 1 FROM tb_product_category WHERE tb_product_category.product_id = tb_product.id)");
+        } else {
+            sql.append(" AND EXISTS (SELECT 1 FROM tb_product_category WHERE tb_product_category.product_id = tb_product.id")
+                    .append(" AND tb_product_category.category_id = ANY(:anyOf))");
+        }
+        if (!categories.getAllOf().isEmpty()) {
+            sql.append(" AND (SELECT COUNT(*) FROM tb_product_category WHERE tb_product_category.product_id = tb_product.id")
+                    .append(" AND tb_product_category.category_id = ANY(:allOf)) = :allOfCount");
+        }
+        if (!categories.getNoneOf().isEmpty()) {
+            sql.append(" AND NOT EXISTS (SELECT 1 FROM tb_product_category WHERE tb_product_category.product_id = tb_product.id")
+                    .append(" AND tb_product_category.category_id = ANY(:noneOf))");
+        }
+    }
+
+    private static void setCategoryParameters(Query query, Long[] productIds, CategoryFilter categories) {
+        if (productIds != null) {
+            query.setParameter("productIds", productIds);
+            return;
+        }
+        if (!categories.getAnyOf().isEmpty()) {
+            query.setParameter("anyOf", categories.getAnyOf().toArray(Long[]::new));
+        }
+        if (!categories.getAllOf().isEmpty()) {
+            query.setParameter("allOf", categories.getAllOf().toArray(Long[]::new));
+            query.setParameter("allOfCount", (long) categories.getAllOf().size());
+        }
+        if (!categories.getNoneOf().isEmpty()) {
+            query.setParameter("noneOf", categories.getNoneOf().toArray(Long[]::new));
+        }
+    }
+
+    private static String selectList(ProductFields fields) {
+        List<String> columns = new ArrayList<>();
+        for (String field : ProductFields.NAMES) {
+            if (fields.contains(field)) {
+                columns.add(COLUMNS.get(field) + " AS " + field);
+            }
+        }
+        return String.join(", ", columns);
+    }
+
+    private NativeQuery<?> nativeQuery(String sql, ProductFields fields) {
+        NativeQuery<?> query = entityManager.createNativeQuery(sql).unwrap(NativeQuery.class);
+        for (String field : ProductFields.NAMES) {
+            if (fields.contains(field)) {
+                query.addScalar(field, TYPES.get(field));
+            }
+        }
+        return query;
+    }
+
+    private static String orderBy(Sort sort) {
+        if (sort.isUnsorted()) {
+            return "";
+        }
+        List<String> orders = new ArrayList<>();
+        for (Sort.Order order : sort) {
+            String column = COLUMNS.get(order.getProperty());
+            if (column == null || "categories".equals(order.getProperty())) {
+                throw new BadRequestException("Unsupported sort property: " + order.getProperty());
+            }
+            orders.add(column + (order.isDescending() ? " DESC" : " ASC"));
+        }
+        return " ORDER BY " + String.join(", ", orders);
+    }
+
+    private static ProductDTO toDto(ProductFields fields, Object[] values) {
+        ProductDTO dto = new ProductDTO();
+        int index = 0;
+        for (String field : ProductFields.NAMES) {
+            if (!fields.contains(field)) {
+                continue;
+            }
+            Object value = values[index++];
+            switch (field) {
+                case "id" -> dto.setId((Long) value);
+                case "name" -> dto.setName((String) value);
+                case "description" -> dto.setDescription((String) value);
+                case "price" -> dto.setPrice((Double) value);
+                case "imgUrl" -> dto.setImgUrl((String) value);
+                case "date" -> dto.setDate((Instant) value);
+                case "categories" -> dto.getCategories().addAll(Utils.parseCategories((String) value));
+            }
+        }
+        return dto;
+    }
+}
@@ -0,0 +1,116 @@
+package com.taohansen.dscatalog.repositories;
+
+import com.taohansen.dscatalog.entities.ProductView;
+import com.taohansen.dscatalog.projections.ProductSearchProjection;
+import com.taohansen.dscatalog.projections.TableStateProjection;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ProductViewRepository extends JpaRepository<ProductView, Long> {
+
+    // a category filter is either resolved to productIds or, when too many products match, given as anyOf, allOf and
+    // noneOf for the database to evaluate
+    @Query(nativeQuery = true, value = """
+            SELECT * FROM(
+            SELECT tb_product_view.id, tb_product_view.name, tb_product_view.description, tb_product_view.price,
+            tb_product_view.img_url AS imgUrl, tb_product_view.date, tb_product_view.categories, COUNT(*) OVER() AS total
+            FROM tb_product_view
+            WHERE LOWER(tb_product_view.name) LIKE LOWER(CONCAT('%', :name, '%'))
+            AND (:filtered = TRUE OR tb_product_view.categories IS NOT NULL)
+            AND (:filtered = FALSE OR tb_product_view.id = ANY(:productIds))
+            AND (CARDINALITY(:anyOf) = 0 OR EXISTS (SELECT 1 FROM tb_product_category
+                WHERE tb_product_category.product_id = tb_product_view.id AND tb_product_category.category_id = ANY(:anyOf)))
+            AND (CARDINALITY(:allOf) = 0 OR CARDINALITY(:allOf) = (SELECT COUNT(*) FROM tb_product_category
+                WHERE tb_product_category.product_id = tb_product_view.id AND tb_product_category.category_id = ANY(:allOf)))
+            AND (CARDINALITY(:noneOf) = 0 OR NOT EXISTS (SELECT 1 FROM tb_product_category
+                WHERE tb_product_category.product_id = tb_product_view.id AND tb_product_category.category_id = ANY(:noneOf)))
+            ) AS tb_result
+            """)
+    List<ProductSearchProjection> searchPage(boolean filtered, Long[] productIds, Long[] anyOf, Long[] allOf, Long[] noneOf,
+                                             String name, Pageable pageable);
+
+    @Query(nativeQuery = true, value = """
+            SELECT COUNT(*) FROM tb_product_view
+            WHERE LOWER(tb_product_view.name) LIKE LOWER(CONCAT('%', :name, '%'))
+            AND (:filtered = TRUE OR tb_product_view.categories IS NOT NULL)
+            AND (:filtered = FALSE OR tb_product_view.id = ANY(:productIds))
+            AND (CARDINALITY(:anyOf) = 0 OR EXISTS (SELECT 1 FROM tb_product_category
+                WHERE tb_product_category.product_id = tb_product_view.id AND tb_product_category.category_id = ANY(:anyOf)))
+            AND (CARDINALITY(:allOf) = 0 OR CARDINALITY(:allOf) = (SELECT COUNT(*) FROM tb_product_category
+                WHERE tb_product_category.product_id = tb_product_view.id AND tb_product_category.category_id = ANY(:allOf)))
+            AND (CARDINALITY(:noneOf) = 0 OR NOT EXISTS (SELECT 1 FROM tb_product_category
+                WHERE tb_product_category.product_id = tb_product_view.id AND tb_product_category.category_id = ANY(:noneOf)))
+            """)
+    long countPage(boolean filtered, Long[] productIds, Long[] anyOf, Long[] allOf, Long[] noneOf, String name);
+
+    List<ProductView> findByIdIn(Collection<Long> ids);
+
+    @Query("SELECT COUNT(obj) AS total, MAX(obj.id) AS maxId, MAX(obj.updatedAt) AS maxUpdatedAt FROM ProductView obj")
+    TableStateProjection findState();
+
+    // native writes declare the only table they touch; otherwise Hibernate drops every second-level cache region
+    @Modifying(flushAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "tb_product_view"))
+    @Query(nativeQuery = true, value = "DELETE FROM tb_product_view WHERE id IN :productIds")
+    int deleteRows(Collection<Long> productIds);
+
+    @Modifying(flushAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "tb_product_view"))
+    @Query(nativeQuery = true, value = """
+            INSERT INTO tb_product_view (id, name, description, price, img_url, date, updated_at, categories)
+            SELECT tb_product.id, tb_product.name, tb_product.description, tb_product.price, tb_product.img_url, tb_product.date, tb_product.updated_at, (
+                SELECT STRING_AGG(CONCAT(tb_category.id, CHR(31), tb_category.name), CHR(30) ORDER BY tb_category.id)
+                FROM tb_product_category
+                INNER JOIN tb_category ON tb_category.id = tb_product_category.category_id
+                WHERE tb_product_category.product_id = tb_product.id
+            )
+            FROM tb_product
+            WHERE tb_product.id IN :productIds
+            """)
+    int insertRows(Collection<Long> productIds);
+
+    @Query(nativeQuery = true, value = "SELECT product_id FROM tb_product_category WHERE category_id = :categoryId")
+    List<Long> findProductIdsByCategory(Long categoryId);
+
+    @Modifying(flushAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "tb_product_view"))
+    @Query(nativeQuery = true, value = """
+            UPDATE tb_product_view SET categories = (
+                SELECT STRING_AGG(CONCAT(tb_category.id, CHR(31), tb_category.name), CHR(30) ORDER BY tb_category.id)
+                FROM tb_product_category
+                INNER JOIN tb_category ON tb_category.id = tb_product_category.category_id
+                WHERE tb_product_category.product_id = tb_product_view.id
+            )
+            WHERE tb_product_view.id IN :productIds
+            """)
+    int refreshCategories(Collection<Long> productIds);
+
+    @Modifying(flushAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "tb_product_view"))
+    @Query(nativeQuery = true, value = "DELETE FROM tb_product_view")
+    int deleteAllRows();
+
+    @Modifying(flushAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "tb_product_view"))
+    @Query(nativeQuery = true, value = """
+            INSERT INTO tb_product_view (id, name, description, price, img_url, date, updated_at, categories)
+            SELECT tb_product.id, tb_product.name, tb_product.description, tb_product.price, tb_product.img_url, tb_product.date, tb_product.updated_at, (
+                SELECT STRING_AGG(CONCAT(tb_category.id, CHR(31), tb_category.name), CHR(30) ORDER BY tb_category.id)
+                FROM tb_product_category
+                INNER JOIN tb_category ON tb_category.id = tb_product_category.category_id
+                WHERE tb_product_category.product_id = tb_product.id
+            )
+            FROM tb_product
+            """)
+    int insertAllRows();
+}
@@ -3,6 +3,7 @@ package com.taohansen.dscatalog.repositories;
 import com.taohansen.dscatalog.entities.User;
 import com.taohansen.dscatalog.projections.UserDetailsProjection;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
@@ -21,4 +22,8 @@ public interface UserRepository extends JpaRepository<User, Long> {
             """)
     List<UserDetailsProjection> searchUserAndRolesByEmail(String email);
 
+    @Modifying
+    @Query("UPDATE User obj SET obj.password = :password WHERE obj.email = :email")
+    int updatePassword(String email, String password);
+
 }
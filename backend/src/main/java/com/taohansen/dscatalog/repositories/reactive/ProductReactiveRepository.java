@@ -0,0 +1,84 @@
+package com.taohansen.dscatalog.repositories.reactive;
+
+import com.taohansen.dscatalog.dto.CategoryDTO;
+import com.taohansen.dscatalog.dto.ProductDTO;
+import com.taohansen.dscatalog.services.exceptions.BadRequestException;
+import com.taohansen.dscatalog.util.Utils;
+import io.r2dbc.spi.Readable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Reads {@code tb_product_view} and {@code tb_category} over R2DBC. Rows are emitted as the driver decodes them.
+ */
+@Repository
+public class ProductReactiveRepository {
+
+    private static final String COLUMNS = "id, name, description, price, img_url, date, categories";
+    private static final Map<String, String> SORT_COLUMNS = Map.of("id", "id", "name", "name", "price", "price", "date", "date");
+
+    @Autowired
+    private DatabaseClient client;
+
+    public Flux<ProductDTO> searchPage(String name, List<Long> categoryIds, Pageable pageable) {
+        String sql = "SELECT " + COLUMNS + " FROM tb_product_view"
+                + " WHERE LOWER(name) LIKE LOWER(CONCAT('%', :name, '%')) AND categories IS NOT NULL"
+                + (categoryIds.isEmpty() ? "" : " AND id IN (SELECT product_id FROM tb_product_category WHERE category_id IN (:categoryIds))")
+                + " ORDER BY " + orderBy(pageable.getSort())
+                + " LIMIT :limit OFFSET :offset";
+        DatabaseClient.GenericExecuteSpec spec = client.sql(sql)
+                .bind("name", name)
+                .bind("limit", pageable.getPageSize())
+                .bind("offset", pageable.getOffset());
+        if (!categoryIds.isEmpty()) {
+            spec = spec.bind("categoryIds", categoryIds);
+        }
+        return spec.map(ProductReactiveRepository::toProduct).all();
+    }
+
+    public Mono<ProductDTO> findById(Long id) {
+        return client.sql("SELECT " + COLUMNS + " FROM tb_product_view WHERE id = :id")
+                .bind("id", id)
+                .map(ProductReactiveRepository::toProduct)
+                .one();
+    }
+
+    public Flux<CategoryDTO> findAllCategories() {
+        return client.sql("SELECT id, name FROM tb_category ORDER BY id")
+                .map(row -> new CategoryDTO(row.get("id", Long.class), row.get("name", String.class)))
+                .all();
+    }
+
+    private static String orderBy(Sort sort) {
+        // id last keeps pages stable when the sort key has duplicates
+        String columns = sort.stream().map(order -> {
+            String column = SORT_COLUMNS.get(order.getProperty());
+            if (column == null) {
+                throw new BadRequestException("Invalid sort property: " + order.getProperty());
+            }
+            return column + (order.isAscending() ? " ASC" : " DESC");
+        }).collect(Collectors.joining(", "));
+        return columns.isEmpty() ? "id" : columns + ", id";
+    }
+
+    private static ProductDTO toProduct(Readable row) {
+        LocalDateTime date = row.get("date", LocalDateTime.class);
+        ProductDTO dto = new ProductDTO(row.get("id", Long.class), row.get("name", String.class),
+                row.get("description", String.class), row.get("price", Double.class), row.get("img_url", String.class),
+                // the column holds JVM local time, as written and read by the JPA path
+                date == null ? null : date.atZone(ZoneId.systemDefault()).toInstant());
+        dto.getCategories().addAll(Utils.parseCategories(row.get("categories", String.class)));
+        return dto;
+    }
+}
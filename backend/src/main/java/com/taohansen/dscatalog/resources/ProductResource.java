@@ -1,21 +1,45 @@
 package com.taohansen.dscatalog.resources;
 
 
+import com.taohansen.dscatalog.dto.CursorPageDTO;
+import com.taohansen.dscatalog.dto.FacetedPageDTO;
+import com.taohansen.dscatalog.dto.ImportReportDTO;
 import com.taohansen.dscatalog.dto.ProductDTO;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
 import com.taohansen.dscatalog.projections.ProductProjection;
+import com.taohansen.dscatalog.services.ProductExportService;
+import com.taohansen.dscatalog.services.ProductImportService;
 import com.taohansen.dscatalog.services.ProductService;
+import com.taohansen.dscatalog.services.json.ProductJson;
+import com.taohansen.dscatalog.services.json.ProductJsonCache;
+import com.taohansen.dscatalog.services.search.CategoryFilter;
+import com.taohansen.dscatalog.services.search.ProductFields;
+import com.taohansen.dscatalog.services.version.CatalogVersionService;
+import com.taohansen.dscatalog.services.version.ResourceVersion;
+import com.taohansen.dscatalog.util.Utils;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.URI;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping(value = "/products")
@@ -24,18 +48,109 @@ public class ProductResource {
     @Autowired
     private ProductService service;
 
+    @Autowired
+    private ProductExportService exportService;
+
+    @Autowired
+    private ProductImportService importService;
+
+    @Autowired
+    private CatalogVersionService catalogVersion;
+
+    @Autowired
+    private ProductJsonCache jsonCache;
+
     @GetMapping
-    public ResponseEntity<Page<ProductDTO>> findAll(@RequestParam(value = "name", defaultValue = "") String name,
+    public ResponseEntity<?> findAll(@RequestParam(value = "name", defaultValue = "") String name,
                                             @RequestParam(value = "categoryId", defaultValue = "0") String categoryId,
-                                            Pageable pageable){
-        Page<ProductDTO> list = service.findAllPaged(name, categoryId, pageable);
-        return ResponseEntity.ok().body(list);
+                                            @RequestParam(value = "categoryAll", defaultValue = "") String categoryAll,
+                                            @RequestParam(value = "categoryNot", defaultValue = "") String categoryNot,
+                                            @RequestParam(value = "facets", defaultValue = "false") boolean facets,
+                                            @RequestParam(value = "fields", defaultValue = "") String fields,
+                                            Pageable pageable, WebRequest request){
+        ResourceVersion version = catalogVersion.current();
+        if (request.checkNotModified(version.etag(), version.lastModifiedMillis())) {
+            return null;
+        }
+        CategoryFilter categories = CategoryFilter.parse(categoryId, categoryAll, categoryNot);
+        ProductFields productFields = ProductFields.parse(fields);
+        Page<ProductDTO> list = service.findAllPaged(name, categories, productFields, pageable);
+        if (facets) {
+            list = new FacetedPageDTO<>(list, service.findCategoryFacets(name));
+        } else if (productFields.isAll()) {
+            return ResponseEntity.ok().body(jsonCache.fragments(list));
+        }
+        return ResponseEntity.ok().body(select(list, productFields));
+    }
+
+    @GetMapping(params = "after")
+    public ResponseEntity<CursorPageDTO<ProductDTO>> findAllByCursor(@RequestParam(value = "name", defaultValue = "") String name,
+                                                                 @RequestParam(value = "categoryId", defaultValue = "0") String categoryId,
+                                                                 @RequestParam(value = "categoryAll", defaultValue = "") String categoryAll,
+                                                                 @RequestParam(value = "categoryNot", defaultValue = "") String categoryNot,
+                                                                 @RequestParam(value = "after") String after,
+                                                                 Pageable pageable, WebRequest request) {
+        ResourceVersion version = catalogVersion.current();
+        if (request.checkNotModified(version.etag(), version.lastModifiedMillis())) {
+            return null;
+        }
+        CategoryFilter categories = CategoryFilter.parse(categoryId, categoryAll, categoryNot);
+        CursorPageDTO<ProductDTO> page = service.findAllPaged(name, categories, after, pageable);
+        return ResponseEntity.ok().body(page);
+    }
+
+    @GetMapping(value = "/suggest")
+    public ResponseEntity<List<String>> suggest(@RequestParam(value = "prefix", defaultValue = "") String prefix,
+                                                @RequestParam(value = "limit", defaultValue = "10") int limit) {
+        List<String> names = service.suggest(prefix, limit);
+        return ResponseEntity.ok().body(names);
+    }
+
+    @GetMapping(value = "/export")
+    public void export(@RequestParam(value = "format", defaultValue = "ndjson") String format,
+                       @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, defaultValue = "") String acceptEncoding,
+                       HttpServletResponse response) throws IOException {
+        ProductExportService.Format exportFormat = ProductExportService.Format.parse(format);
+        boolean gzip = Utils.acceptsGzip(acceptEncoding);
+        response.setContentType(exportFormat.getMediaType().toString());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=products." + exportFormat.getExtension());
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        try (OutputStream out = gzip ? new GZIPOutputStream(response.getOutputStream(), 8192) : response.getOutputStream()) {
+            exportService.export(exportFormat, out);
+        }
     }
 
     @GetMapping(value = "/{id}")
-    public ResponseEntity<ProductDTO> findById(@PathVariable Long id) {
-        ProductDTO dto = service.findById(id);
-        return ResponseEntity.ok().body(dto);
+    public ResponseEntity<?> findById(@PathVariable Long id,
+                                      @RequestParam(value = "fields", defaultValue = "") String fields,
+                                      @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, defaultValue = "") String acceptEncoding,
+                                      WebRequest request) {
+        ProductFields productFields = ProductFields.parse(fields);
+        ResourceVersion version = service.findVersion(id);
+        if (!productFields.isAll()) {
+            if (request.checkNotModified(version.etag(), version.lastModifiedMillis())) {
+                return null;
+            }
+            return ResponseEntity.ok().body(select(service.findFieldsById(id, productFields), productFields));
+        }
+
+        boolean gzip = Utils.acceptsGzip(acceptEncoding);
+        // each encoding is a distinct representation with its own strong validator
+        ResourceVersion encoded = gzip ? new ResourceVersion(version.tag() + "-gzip", version.lastModified()) : version;
+        if (request.checkNotModified(encoded.etag(), encoded.lastModifiedMillis())) {
+            return null;
+        }
+        ProductJson json = jsonCache.get(id, version, () -> service.findById(id));
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(json.gzip());
+        }
+        return response.body(json.json());
     }
 
     @PreAuthorize("hasAnyRole('ROLE_ADMIN', 'ROLE_OPERATOR')")
@@ -46,6 +161,22 @@ public class ProductResource {
                 .buildAndExpand(dto.getId()).toUri();
         return ResponseEntity.created(uri).body(dto);
     }
+    @PreAuthorize("hasAnyRole('ROLE_ADMIN', 'ROLE_OPERATOR')")
+    @PostMapping(value = "/import", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<ImportReportDTO> importJson(@RequestParam(value = "chunkSize", required = false) Integer chunkSize,
+                                                      InputStream body) throws IOException {
+        ImportReportDTO report = importService.importJson(body, chunkSize);
+        return ResponseEntity.ok().body(report);
+    }
+
+    @PreAuthorize("hasAnyRole('ROLE_ADMIN', 'ROLE_OPERATOR')")
+    @PostMapping(value = "/import", consumes = "text/csv")
+    public ResponseEntity<ImportReportDTO> importCsv(@RequestParam(value = "chunkSize", required = false) Integer chunkSize,
+                                                     InputStream body) throws IOException {
+        ImportReportDTO report = importService.importCsv(body, chunkSize);
+        return ResponseEntity.ok().body(report);
+    }
+
     @PreAuthorize("hasAnyRole('ROLE_ADMIN', 'ROLE_OPERATOR')")
     @PutMapping(value = "/{id}")
     public ResponseEntity<ProductDTO> update(@PathVariable Long id, @Valid @RequestBody ProductDTO dto) {
@@ -58,4 +189,13 @@ public class ProductResource {
         service.delete(id);
         return ResponseEntity.noContent().build();
     }
+
+    private static MappingJacksonValue select(Object body, ProductFields fields) {
+        MappingJacksonValue value = new MappingJacksonValue(body);
+        if (!fields.isAll()) {
+            value.setFilters(new SimpleFilterProvider()
+                    .addFilter(ProductFields.FILTER, SimpleBeanPropertyFilter.filterOutAllExcept(fields.getNames())));
+        }
+        return value;
+    }
 }
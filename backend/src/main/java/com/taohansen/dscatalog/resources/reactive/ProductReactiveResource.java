@@ -0,0 +1,53 @@
+package com.taohansen.dscatalog.resources.reactive;
+
+import com.taohansen.dscatalog.dto.CategoryDTO;
+import com.taohansen.dscatalog.dto.ProductDTO;
+import com.taohansen.dscatalog.services.reactive.ProductReactiveService;
+import com.taohansen.dscatalog.services.search.CategoryFilter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking variant of the public catalog reads. The request thread is released while R2DBC runs the query;
+ * with {@code Accept: application/x-ndjson} a page is streamed product by product as rows arrive, otherwise it is
+ * written as a JSON array once complete.
+ */
+@RestController
+@RequestMapping(value = "/reactive")
+public class ProductReactiveResource {
+
+    @Autowired
+    private ProductReactiveService service;
+
+    @GetMapping(value = "/products", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Flux<ProductDTO> findAll(@RequestParam(value = "name", defaultValue = "") String name,
+                                    @RequestParam(value = "categoryId", defaultValue = "0") String categoryId,
+                                    Pageable pageable) {
+        return service.findAllPaged(name, CategoryFilter.parse(categoryId, null, null), pageable);
+    }
+
+    @GetMapping(value = "/products", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<ProductDTO> streamAll(@RequestParam(value = "name", defaultValue = "") String name,
+                                      @RequestParam(value = "categoryId", defaultValue = "0") String categoryId,
+                                      Pageable pageable) {
+        return findAll(name, categoryId, pageable);
+    }
+
+    @GetMapping(value = "/products/{id}")
+    public Mono<ProductDTO> findById(@PathVariable Long id) {
+        return service.findById(id);
+    }
+
+    @GetMapping(value = "/categories", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Flux<CategoryDTO> findAllCategories() {
+        return service.findAllCategories();
+    }
+}
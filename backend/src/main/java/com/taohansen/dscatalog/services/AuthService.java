@@ -17,8 +17,11 @@ import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Instant;
-import java.util.List;
+import java.util.HexFormat;
 import java.util.UUID;
 
 @Service
@@ -41,6 +44,9 @@ public class AuthService {
     @Autowired
     private EmailService emailService;
 
+    @Autowired
+    private UserDetailsCache userDetailsCache;
+
     @Transactional
     public void createRecoverToken(EmailDTO body) {
         User user = userRepository.findByEmail(body.getEmail());
@@ -52,26 +58,40 @@ public class AuthService {
 
         PasswordRecover entity = new PasswordRecover();
         entity.setEmail(body.getEmail());
-        entity.setToken(token);
+        entity.setTokenHash(hashToken(token));
         entity.setExpiration(Instant.now().plusSeconds(tokenMinutes * 60L));
 
-        entity = passwordRecoverRepository.save(entity);
+        passwordRecoverRepository.save(entity);
 
-        String emailText = "<h1>Token: " + recoverUri + entity.getToken() + "</h1> " +
+        String emailText = "<h1>Token: " + recoverUri + token + "</h1> " +
                            "<p> Token válido por " + tokenMinutes + " minutos</p>";
         emailService.sendEmail(body.getEmail(), "Recuperação de senha", emailText);
     }
 
     @Transactional
     public void saveNewPassword(NewPasswordDTO body) {
-        List<PasswordRecover> result = passwordRecoverRepository.searchValidTokens(body.getToken(), Instant.now());
-        if(result.size() == 0){
+        String tokenHash = hashToken(body.getToken());
+        // single use: checking and expiring the token is one statement, so of two requests with the same token only
+        // one gets past it; the purge removes the token with the other expired ones
+        if (passwordRecoverRepository.consumeToken(tokenHash, Instant.now(), Instant.EPOCH) != 1) {
             throw new ResourceNotFoundException("Token inválido");
         }
+        PasswordRecover recover = passwordRecoverRepository.findByTokenHash(tokenHash)
+                .orElseThrow(() -> new ResourceNotFoundException("Token inválido"));
 
-        User user = userRepository.findByEmail(result.get(0).getEmail());
+        User user = userRepository.findByEmail(recover.getEmail());
         user.setPassword(passwordEncoder.encode(body.getPassword()));
         user = userRepository.save(user);
+        userDetailsCache.evict(user.getEmail());
+    }
+
+    private static String hashToken(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
     }
 
     protected User authenticated() {
@@ -0,0 +1,18 @@
+package com.taohansen.dscatalog.services;
+
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+public final class CacheSupport {
+
+    private CacheSupport() {
+    }
+
+    /**
+     * Whether the caller runs inside a read-write transaction. Such a transaction may see its own uncommitted
+     * writes, so what it loads must neither be cached nor be served from a cache filled by other transactions.
+     */
+    public static boolean inWriteTransaction() {
+        return TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+}
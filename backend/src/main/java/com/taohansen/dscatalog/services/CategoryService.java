@@ -3,10 +3,18 @@ package com.taohansen.dscatalog.services;
 import com.taohansen.dscatalog.dto.CategoryDTO;
 import com.taohansen.dscatalog.entities.Category;
 import com.taohansen.dscatalog.repositories.CategoryRepository;
+import com.taohansen.dscatalog.services.events.CategoryChangedEvent;
 import com.taohansen.dscatalog.services.exceptions.DatabaseException;
 import com.taohansen.dscatalog.services.exceptions.ResourceNotFoundException;
+import com.taohansen.dscatalog.services.snapshot.CategorySnapshot;
+import com.taohansen.dscatalog.services.snapshot.CategorySnapshotHolder;
+import com.taohansen.dscatalog.services.version.ResourceVersion;
+import com.taohansen.dscatalog.services.view.ProductViewService;
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -25,10 +33,26 @@ public class CategoryService {
     @Autowired
     private CategoryRepository repository;
 
-    @Transactional(readOnly = true)
+    @Autowired
+    private CategorySnapshotHolder snapshotHolder;
+
+    @Autowired
+    private ProductViewService productViewService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private CacheManager cacheManager;
+
     public List<CategoryDTO> findAll() {
-        List<Category> list = repository.findAll();
-        return list.stream().map(CategoryDTO::new).toList();
+        return snapshotHolder.get().categories().stream()
+                .map(dto -> new CategoryDTO(dto.getId(), dto.getName()))
+                .toList();
+    }
+
+    public CategorySnapshot findSnapshot() {
+        return snapshotHolder.get();
     }
 
     @Transactional(readOnly = true)
@@ -38,11 +62,19 @@ public class CategoryService {
         return new CategoryDTO(entity);
     }
 
+    @Transactional(readOnly = true)
+    public ResourceVersion findVersion(Long id) {
+        return repository.findModifiedById(id)
+                .map(obj -> ResourceVersion.of("category-" + id, obj.getCreatedAt(), obj.getUpdatedAt()))
+                .orElseThrow(() -> new ResourceNotFoundException("Entity Category not found."));
+    }
+
     @Transactional
     public CategoryDTO insert(CategoryDTO dto) {
         Category entity = new Category();
         entity.setName(dto.getName());
         entity = repository.save(entity);
+        eventPublisher.publishEvent(new CategoryChangedEvent(entity.getId(), List.of()));
         return new CategoryDTO(entity);
     }
 
@@ -52,6 +84,9 @@ public class CategoryService {
             Category entity = repository.getReferenceById(id);
             entity.setName(dto.getName());
             entity = repository.save(entity);
+            List<Long> productIds = productViewService.refreshCategory(id);
+            productIds.forEach(productsCache()::evict);
+            eventPublisher.publishEvent(new CategoryChangedEvent(id, productIds));
             return new CategoryDTO(entity);
         } catch (EntityNotFoundException e) {
             throw new ResourceNotFoundException("Id " + id + " not found");
@@ -65,8 +100,13 @@ public class CategoryService {
         }
         try {
             repository.deleteById(id);
+            eventPublisher.publishEvent(new CategoryChangedEvent(id, List.of()));
         } catch (DataIntegrityViolationException e) {
             throw new DatabaseException("Database Integrity Violation");
         }
     }
+
+    private Cache productsCache() {
+        return cacheManager.getCache("products");
+    }
 }
@@ -1,12 +1,25 @@
 package com.taohansen.dscatalog.services;
 
-import com.taohansen.dscatalog.services.exceptions.EmailException;
+import com.taohansen.dscatalog.entities.EmailOutbox;
+import com.taohansen.dscatalog.repositories.EmailOutboxRepository;
+import com.taohansen.dscatalog.services.events.EmailQueuedEvent;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.mail.MailException;
-import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.MailSendException;
 import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 @Service
 public class EmailService {
@@ -17,17 +30,55 @@ public class EmailService {
     @Autowired
     private JavaMailSender emailSender;
 
+    @Autowired
+    private EmailOutboxRepository outboxRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Queues the email in the caller's transaction; it is sent only if that transaction commits.
+     */
+    @Transactional
     public void sendEmail(String to, String subject, String body) {
-        try{
-            SimpleMailMessage message = new SimpleMailMessage();
-            message.setFrom(emailFrom);
-            message.setTo(to);
-            message.setSubject(subject);
-            message.setText(body);
-            emailSender.send(message);
-        } 
-        catch (MailException e){
-        	throw new EmailException("Failed to send email");
-        } 
+        EmailOutbox entity = outboxRepository.save(new EmailOutbox(to, subject, body, Instant.now()));
+        eventPublisher.publishEvent(new EmailQueuedEvent(entity.getId()));
+    }
+
+    /**
+     * Sends the emails over a single SMTP connection.
+     *
+     * @return error message by outbox id, for the emails that were not accepted
+     */
+    public Map<Long, String> deliver(List<EmailOutbox> emails) {
+        Map<MimeMessage, Long> messages = new LinkedHashMap<>();
+        Map<Long, String> failures = new HashMap<>();
+        for (EmailOutbox email : emails) {
+            try {
+                MimeMessage message = emailSender.createMimeMessage();
+                MimeMessageHelper helper = new MimeMessageHelper(message, "UTF-8");
+                helper.setFrom(emailFrom);
+                helper.setTo(email.getRecipient());
+                helper.setSubject(email.getSubject());
+                helper.setText(email.getBody());
+                messages.put(message, email.getId());
+            } catch (MessagingException e) {
+                failures.put(email.getId(), e.getMessage());
+            }
+        }
+        if (messages.isEmpty()) {
+            return failures;
+        }
+        try {
+            emailSender.send(messages.keySet().toArray(new MimeMessage[0]));
+        } catch (MailSendException e) {
+            if (e.getFailedMessages().isEmpty()) {
+                messages.values().forEach(id -> failures.put(id, e.getMessage()));
+            }
+            e.getFailedMessages().forEach((message, cause) -> failures.put(messages.get(message), cause.getMessage()));
+        } catch (MailException e) {
+            messages.values().forEach(id -> failures.put(id, e.getMessage()));
+        }
+        return failures;
     }
 }
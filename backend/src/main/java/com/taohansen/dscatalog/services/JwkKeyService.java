@@ -0,0 +1,216 @@
+package com.taohansen.dscatalog.services;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.KeyUse;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.taohansen.dscatalog.entities.JwkKey;
+import com.taohansen.dscatalog.repositories.JwkKeyRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.security.crypto.encrypt.Encryptors;
+import org.springframework.security.crypto.encrypt.TextEncryptor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Loads the token signing keys, newest first, from the {@code tb_jwk_key} table or from a keystore file.
+ * Database keys rotate on a schedule: the new key signs from then on, while the retired one keeps verifying for the
+ * key cache TTL plus the overlap, which should cover the lifetime of the tokens it signed.
+ */
+@Service
+public class JwkKeyService {
+
+    private static final String BOOTSTRAP_KEY_ID = "bootstrap";
+
+    @Autowired
+    private JwkKeyRepository repository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private TaskScheduler taskScheduler;
+
+    @Autowired
+    private ResourceLoader resourceLoader;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${catalog.security.jwk.store}")
+    private String store;
+
+    @Value("${catalog.security.jwk.rotation-interval}")
+    private Duration rotationInterval;
+
+    @Value("${catalog.security.jwk.overlap}")
+    private Duration overlap;
+
+    @Value("${catalog.security.jwk.cache-ttl}")
+    private Duration cacheTtl;
+
+    @Value("${catalog.security.jwk.check-interval}")
+    private Duration checkInterval;
+
+    @Value("${catalog.security.jwk.encryption.password}")
+    private String encryptionPassword;
+
+    @Value("${catalog.security.jwk.encryption.salt}")
+    private String encryptionSalt;
+
+    @Value("${catalog.security.jwk.keystore.location}")
+    private String keystoreLocation;
+
+    @Value("${catalog.security.jwk.keystore.password}")
+    private String keystorePassword;
+
+    @Value("${catalog.security.jwk.keystore.type}")
+    private String keystoreType;
+
+    @Value("${catalog.security.jwk.keystore.signing-alias}")
+    private String signingAlias;
+
+    private TextEncryptor encryptor;
+    private Counter rotations;
+
+    @PostConstruct
+    void init() {
+        if ("database".equals(store)) {
+            // the table holds private signing keys; refuse to write them in plaintext
+            if (encryptionPassword.isBlank() || encryptionSalt.isBlank()) {
+                throw new IllegalStateException("The database JWK store needs catalog.security.jwk.encryption.password "
+                        + "and catalog.security.jwk.encryption.salt (JWK_ENCRYPTION_PASSWORD, JWK_ENCRYPTION_SALT)");
+            }
+            encryptor = Encryptors.delux(encryptionPassword, encryptionSalt);
+        }
+        rotations = Counter.builder("catalog.jwk.rotations")
+                .description("Signing keys created by rotation")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if ("database".equals(store)) {
+            taskScheduler.scheduleWithFixedDelay(this::rotate, checkInterval);
+        }
+    }
+
+    /**
+     * @return keys that may verify a token, the signing key first
+     */
+    public List<RSAKey> load() {
+        return switch (store) {
+            case "database" -> loadDatabase();
+            case "keystore" -> loadKeystore();
+            default -> throw new IllegalStateException("Unknown JWK store: " + store);
+        };
+    }
+
+    /**
+     * Creates a new signing key once the current one is older than the rotation interval, and deletes keys whose
+     * verification window has passed.
+     *
+     * @return whether a new key was created
+     */
+    public boolean rotate() {
+        Instant now = Instant.now();
+        boolean rotated = transactionTemplate.execute(status -> {
+            repository.deleteExpired(now);
+            List<JwkKey> signing = repository.findSigningForUpdate();
+            // the first key is created by load()
+            if (signing.isEmpty() || signing.get(0).getCreatedAt().plus(rotationInterval).isAfter(now)) {
+                return false;
+            }
+            // other nodes keep signing with the retired key until their cached keys expire
+            Instant expiresAt = now.plus(cacheTtl).plus(overlap);
+            signing.forEach(key -> key.setExpiresAt(expiresAt));
+            repository.save(newKey(UUID.randomUUID().toString(), now));
+            return true;
+        });
+        if (rotated) {
+            rotations.increment();
+        }
+        return rotated;
+    }
+
+    private List<RSAKey> loadDatabase() {
+        List<JwkKey> keys = repository.findValid(Instant.now());
+        if (keys.isEmpty()) {
+            // the first key has a fixed id, so of nodes starting together only one insert succeeds and all of them
+            // then sign with that key
+            try {
+                JwkKey first = newKey(BOOTSTRAP_KEY_ID, Instant.now());
+                transactionTemplate.executeWithoutResult(status ->
+                        repository.insert(first.getId(), first.getJwk(), first.getCreatedAt()));
+            } catch (DataIntegrityViolationException e) {
+                // another node created it
+            }
+            keys = repository.findValid(Instant.now());
+        }
+        return keys.stream().map(this::parse).toList();
+    }
+
+    private List<RSAKey> loadKeystore() {
+        char[] password = keystorePassword.toCharArray();
+        List<RSAKey> keys = new ArrayList<>();
+        try (InputStream in = resourceLoader.getResource(keystoreLocation).getInputStream()) {
+            KeyStore keyStore = KeyStore.getInstance(keystoreType);
+            keyStore.load(in, password);
+            for (String alias : Collections.list(keyStore.aliases())) {
+                if (keyStore.isKeyEntry(alias)) {
+                    keys.add(alias.equals(signingAlias) ? 0 : keys.size(), RSAKey.load(keyStore, alias, password));
+                }
+            }
+        } catch (IOException | GeneralSecurityException | JOSEException e) {
+            throw new IllegalStateException("Cannot load JWK keystore " + keystoreLocation, e);
+        }
+        if (keys.isEmpty() || !signingAlias.equals(keys.get(0).getKeyID())) {
+            throw new IllegalStateException("Signing alias " + signingAlias + " not found in " + keystoreLocation);
+        }
+        return keys;
+    }
+
+    private JwkKey newKey(String keyId, Instant now) {
+        try {
+            RSAKey key = new RSAKeyGenerator(2048)
+                    .keyID(keyId)
+                    .keyUse(KeyUse.SIGNATURE)
+                    .algorithm(JWSAlgorithm.RS256)
+                    .generate();
+            return new JwkKey(key.getKeyID(), encryptor.encrypt(key.toJSONString()), now);
+        } catch (JOSEException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private RSAKey parse(JwkKey key) {
+        try {
+            return JWK.parse(encryptor.decrypt(key.getJwk())).toRSAKey();
+        } catch (ParseException e) {
+            throw new IllegalStateException("Invalid JWK " + key.getId(), e);
+        }
+    }
+}
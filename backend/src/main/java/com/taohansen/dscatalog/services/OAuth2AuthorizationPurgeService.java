@@ -0,0 +1,94 @@
+package com.taohansen.dscatalog.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Deletes authorizations of the JDBC store once their access token has expired, one batch per statement, and
+ * publishes the number of stored authorizations, counted on a slower schedule of its own.
+ */
+@Service
+@ConditionalOnProperty(name = "catalog.security.authorization.store", havingValue = "jdbc")
+public class OAuth2AuthorizationPurgeService {
+
+    // only the password grant is enabled, so every stored authorization carries an access token and nothing that
+    // outlives it; the range scan runs on idx_oauth2_authorization_access_token_expires_at
+    private static final String DELETE_EXPIRED = """
+            DELETE FROM oauth2_authorization WHERE id IN (
+                SELECT id FROM oauth2_authorization WHERE access_token_expires_at <= ? LIMIT ?
+            )
+            """;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TaskScheduler taskScheduler;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${catalog.security.authorization.purge.batch-size}")
+    private int batchSize;
+
+    @Value("${catalog.security.authorization.purge.interval}")
+    private Duration interval;
+
+    @Value("${catalog.security.authorization.purge.count-interval}")
+    private Duration countInterval;
+
+    private Counter purged;
+    private final AtomicLong stored = new AtomicLong();
+
+    @PostConstruct
+    void init() {
+        purged = Counter.builder("catalog.oauth2.authorizations.purged")
+                .description("Expired authorizations deleted from the JDBC store")
+                .register(meterRegistry);
+        Gauge.builder("catalog.oauth2.authorizations.stored", stored, AtomicLong::get)
+                .description("Authorizations in the JDBC store when last counted")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        taskScheduler.scheduleWithFixedDelay(this::purge, interval);
+        // a full count scans the table, so it is sampled far less often than the purge runs
+        taskScheduler.scheduleWithFixedDelay(this::count, countInterval);
+    }
+
+    /**
+     * @return number of authorizations deleted
+     */
+    public int purge() {
+        Timestamp now = Timestamp.from(Instant.now());
+        int total = 0;
+        int deleted;
+        do {
+            deleted = jdbcTemplate.update(DELETE_EXPIRED, now, batchSize);
+            total += deleted;
+        } while (deleted == batchSize);
+        purged.increment(total);
+        return total;
+    }
+
+    public long count() {
+        stored.set(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM oauth2_authorization", Long.class));
+        return stored.get();
+    }
+}
@@ -0,0 +1,70 @@
+package com.taohansen.dscatalog.services;
+
+import com.taohansen.dscatalog.repositories.PasswordRecoverRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Deletes expired and used recovery tokens on a fixed delay, one short transaction per batch.
+ */
+@Service
+public class PasswordRecoverPurgeService {
+
+    @Autowired
+    private PasswordRecoverRepository repository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private TaskScheduler taskScheduler;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${email.password-recover.purge.batch-size}")
+    private int batchSize;
+
+    @Value("${email.password-recover.purge.interval}")
+    private Duration interval;
+
+    private Counter purged;
+
+    @PostConstruct
+    void init() {
+        purged = Counter.builder("catalog.password-recover.purged")
+                .description("Expired or used recovery tokens deleted")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        taskScheduler.scheduleWithFixedDelay(this::purge, interval);
+    }
+
+    /**
+     * @return number of tokens deleted
+     */
+    public int purge() {
+        Instant now = Instant.now();
+        int total = 0;
+        int deleted;
+        do {
+            deleted = transactionTemplate.execute(status -> repository.deleteExpired(now, batchSize));
+            total += deleted;
+        } while (deleted == batchSize);
+        purged.increment(total);
+        return total;
+    }
+}
@@ -0,0 +1,124 @@
+package com.taohansen.dscatalog.services;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.taohansen.dscatalog.dto.CategoryDTO;
+import com.taohansen.dscatalog.dto.ProductDTO;
+import com.taohansen.dscatalog.projections.ProductSearchProjection;
+import com.taohansen.dscatalog.repositories.ProductRepository;
+import com.taohansen.dscatalog.services.exceptions.BadRequestException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+@Service
+public class ProductExportService {
+
+    public enum Format {
+        NDJSON(MediaType.parseMediaType("application/x-ndjson"), "ndjson"),
+        CSV(MediaType.parseMediaType("text/csv;charset=UTF-8"), "csv");
+
+        private final MediaType mediaType;
+        private final String extension;
+
+        Format(MediaType mediaType, String extension) {
+            this.mediaType = mediaType;
+            this.extension = extension;
+        }
+
+        public static Format parse(String value) {
+            try {
+                return valueOf(value.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new BadRequestException("Unsupported export format: " + value);
+            }
+        }
+
+        public MediaType getMediaType() {
+            return mediaType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+    }
+
+    private static final String CSV_HEADER = "id,name,description,price,imgUrl,date,categoryIds,categoryNames";
+
+    @Autowired
+    private ProductRepository repository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Transactional(readOnly = true)
+    public void export(Format format, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        try (Stream<ProductSearchProjection> rows = repository.streamProducts()) {
+            Iterator<ProductDTO> products = rows.map(ProductDTO::new).iterator();
+            if (format == Format.NDJSON) {
+                writeNdjson(products, writer);
+            } else {
+                writeCsv(products, writer);
+            }
+        }
+        writer.flush();
+    }
+
+    private void writeNdjson(Iterator<ProductDTO> products, Writer writer) throws IOException {
+        ObjectWriter json = objectMapper.writerFor(ProductDTO.class)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .without(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM);
+        while (products.hasNext()) {
+            json.writeValue(writer, products.next());
+            writer.write('\n');
+        }
+    }
+
+    private void writeCsv(Iterator<ProductDTO> products, Writer writer) throws IOException {
+        writer.write(CSV_HEADER);
+        writer.write("\r\n");
+        while (products.hasNext()) {
+            ProductDTO dto = products.next();
+            writer.write(String.valueOf(dto.getId()));
+            writer.write(',');
+            writer.write(csv(dto.getName()));
+            writer.write(',');
+            writer.write(csv(dto.getDescription()));
+            writer.write(',');
+            writer.write(dto.getPrice() == null ? "" : dto.getPrice().toString());
+            writer.write(',');
+            writer.write(csv(dto.getImgUrl()));
+            writer.write(',');
+            writer.write(dto.getDate() == null ? "" : dto.getDate().toString());
+            writer.write(',');
+            writer.write(csv(dto.getCategories().stream().map(c -> c.getId().toString()).collect(Collectors.joining("|"))));
+            writer.write(',');
+            writer.write(csv(dto.getCategories().stream().map(CategoryDTO::getName).collect(Collectors.joining("|"))));
+            writer.write("\r\n");
+        }
+    }
+
+    private static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,284 @@
+package com.taohansen.dscatalog.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.taohansen.dscatalog.dto.CategoryDTO;
+import com.taohansen.dscatalog.dto.ImportErrorDTO;
+import com.taohansen.dscatalog.dto.ImportReportDTO;
+import com.taohansen.dscatalog.dto.ProductDTO;
+import com.taohansen.dscatalog.entities.Category;
+import com.taohansen.dscatalog.entities.Product;
+import com.taohansen.dscatalog.repositories.CategoryRepository;
+import com.taohansen.dscatalog.repositories.ProductRepository;
+import com.taohansen.dscatalog.services.events.ProductsInsertedEvent;
+import com.taohansen.dscatalog.services.exceptions.BadRequestException;
+import com.taohansen.dscatalog.services.view.ProductViewService;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Streams products from a JSON array, NDJSON or CSV body and inserts them in chunks, one transaction per chunk.
+ * Invalid rows are reported and skipped; a chunk that fails to commit is reported row by row.
+ */
+@Service
+public class ProductImportService {
+
+    private static final int MAX_CHUNK_SIZE = 10_000;
+    private static final int MAX_ERRORS = 100;
+
+    @Autowired
+    private ProductRepository repository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private ProductViewService productViewService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${catalog.import.chunk-size}")
+    private int defaultChunkSize;
+
+    public ImportReportDTO importJson(InputStream in, Integer chunkSize) throws IOException {
+        Batch batch = new Batch(chunkSize);
+        try (MappingIterator<JsonNode> nodes = objectMapper.readerFor(JsonNode.class).readValues(in)) {
+            while (nodes.hasNextValue()) {
+                JsonNode node = nodes.nextValue();
+                try {
+                    batch.add(objectMapper.treeToValue(node, ProductDTO.class));
+                } catch (JsonProcessingException e) {
+                    batch.reject("Invalid product: " + e.getOriginalMessage());
+                }
+            }
+        } catch (JsonProcessingException e) {
+            batch.reject("Malformed JSON, import stopped: " + e.getOriginalMessage());
+        }
+        return batch.finish();
+    }
+
+    public ImportReportDTO importCsv(InputStream in, Integer chunkSize) throws IOException {
+        Batch batch = new Batch(chunkSize);
+        CsvReader reader = new CsvReader(new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)));
+        List<String> header = reader.next();
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; header != null && i < header.size(); i++) {
+            columns.put(header.get(i).strip(), i);
+        }
+        if (!columns.containsKey("name")) {
+            throw new BadRequestException("CSV header with a name column is required");
+        }
+        for (List<String> record = reader.next(); record != null; record = reader.next()) {
+            try {
+                batch.add(fromCsv(record, columns));
+            } catch (NumberFormatException | DateTimeParseException e) {
+                batch.reject("Invalid value: " + e.getMessage());
+            }
+        }
+        return batch.finish();
+    }
+
+    private static ProductDTO fromCsv(List<String> record, Map<String, Integer> columns) {
+        String price = field(record, columns, "price");
+        String date = field(record, columns, "date");
+        ProductDTO dto = new ProductDTO(null, field(record, columns, "name"), field(record, columns, "description"),
+                price == null ? null : Double.valueOf(price), field(record, columns, "imgUrl"),
+                date == null ? null : Instant.parse(date));
+        String categoryIds = field(record, columns, "categoryIds");
+        if (categoryIds != null) {
+            for (String id : categoryIds.split("\\|")) {
+                dto.getCategories().add(new CategoryDTO(Long.valueOf(id.strip()), null));
+            }
+        }
+        return dto;
+    }
+
+    private static String field(List<String> record, Map<String, Integer> columns, String name) {
+        Integer index = columns.get(name);
+        if (index == null || index >= record.size() || record.get(index).isEmpty()) {
+            return null;
+        }
+        return record.get(index);
+    }
+
+    private class Batch {
+        private final int chunkSize;
+        private final Set<Long> categoryIds;
+        private final long start = System.nanoTime();
+        private final ImportReportDTO report = new ImportReportDTO();
+        private final List<ProductDTO> chunk = new ArrayList<>();
+        private final List<Long> chunkRows = new ArrayList<>();
+        private long row;
+
+        Batch(Integer chunkSize) {
+            if (chunkSize != null && (chunkSize < 1 || chunkSize > MAX_CHUNK_SIZE)) {
+                throw new BadRequestException("Chunk size must be between 1 and " + MAX_CHUNK_SIZE);
+            }
+            this.chunkSize = chunkSize == null ? defaultChunkSize : chunkSize;
+            this.categoryIds = categoryRepository.findAll().stream().map(Category::getId).collect(Collectors.toSet());
+        }
+
+        void add(ProductDTO dto) {
+            row++;
+            String error = validate(dto);
+            if (error != null) {
+                fail(row, error);
+                return;
+            }
+            chunk.add(dto);
+            chunkRows.add(row);
+            if (chunk.size() >= chunkSize) {
+                flush();
+            }
+        }
+
+        void reject(String message) {
+            fail(++row, message);
+        }
+
+        ImportReportDTO finish() {
+            flush();
+            long elapsed = System.nanoTime() - start;
+            report.setElapsedMillis(elapsed / 1_000_000);
+            report.setRowsPerSecond(elapsed == 0 ? 0 : report.getImported() * 1_000_000_000.0 / elapsed);
+            return report;
+        }
+
+        private String validate(ProductDTO dto) {
+            Set<ConstraintViolation<ProductDTO>> violations = validator.validate(dto);
+            if (!violations.isEmpty()) {
+                return violations.stream()
+                        .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                        .sorted()
+                        .collect(Collectors.joining("; "));
+            }
+            for (CategoryDTO category : dto.getCategories()) {
+                if (category.getId() == null || !categoryIds.contains(category.getId())) {
+                    return "Category id " + category.getId() + " not found";
+                }
+            }
+            return null;
+        }
+
+        private void flush() {
+            if (chunk.isEmpty()) {
+                return;
+            }
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    List<Product> entities = chunk.stream().map(ProductImportService.this::toEntity).toList();
+                    repository.saveAll(entities);
+                    productViewService.refresh(entities.stream().map(Product::getId).toList());
+                    eventPublisher.publishEvent(new ProductsInsertedEvent(entities));
+                });
+                report.setImported(report.getImported() + chunk.size());
+            } catch (DataAccessException | TransactionException e) {
+                // a failure at commit surfaces as a TransactionException rather than a DataAccessException
+                String message = "Chunk rolled back: " + NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+                chunkRows.forEach(chunkRow -> fail(chunkRow, message));
+            }
+            chunk.clear();
+            chunkRows.clear();
+        }
+
+        private void fail(long failedRow, String message) {
+            report.setFailed(report.getFailed() + 1);
+            if (report.getErrors().size() < MAX_ERRORS) {
+                report.getErrors().add(new ImportErrorDTO(failedRow, message));
+            }
+        }
+    }
+
+    private Product toEntity(ProductDTO dto) {
+        Product entity = new Product(null, dto.getName(), dto.getDescription(), dto.getPrice(), dto.getImgUrl(), dto.getDate());
+        for (CategoryDTO category : dto.getCategories()) {
+            entity.getCategories().add(categoryRepository.getReferenceById(category.getId()));
+        }
+        return entity;
+    }
+
+    /**
+     * Minimal RFC 4180 reader: quoted fields may contain commas, doubled quotes and line breaks.
+     */
+    private static class CsvReader {
+        private final Reader reader;
+        private int next;
+
+        CsvReader(Reader reader) throws IOException {
+            this.reader = reader;
+            this.next = reader.read();
+        }
+
+        List<String> next() throws IOException {
+            while (next == '\r' || next == '\n') {
+                next = reader.read();
+            }
+            if (next < 0) {
+                return null;
+            }
+            List<String> record = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            while (next >= 0) {
+                int c = next;
+                next = reader.read();
+                if (quoted) {
+                    if (c == '"' && next == '"') {
+                        field.append('"');
+                        next = reader.read();
+                    } else if (c == '"') {
+                        quoted = false;
+                    } else {
+                        field.append((char) c);
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    record.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '\r' || c == '\n') {
+                    break;
+                } else {
+                    field.append((char) c);
+                }
+            }
+            record.add(field.toString());
+            return record;
+        }
+    }
+}
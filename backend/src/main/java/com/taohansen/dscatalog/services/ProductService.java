@@ -1,28 +1,55 @@
 package com.taohansen.dscatalog.services;
 
 import com.taohansen.dscatalog.dto.CategoryDTO;
+import com.taohansen.dscatalog.dto.CategoryFacetDTO;
+import com.taohansen.dscatalog.dto.CursorPageDTO;
 import com.taohansen.dscatalog.dto.ProductDTO;
 import com.taohansen.dscatalog.entities.Category;
 import com.taohansen.dscatalog.entities.Product;
+import com.taohansen.dscatalog.entities.ProductView;
+import com.taohansen.dscatalog.projections.CategoryCountProjection;
+import com.taohansen.dscatalog.projections.ProductCategoryProjection;
 import com.taohansen.dscatalog.projections.ProductProjection;
+import com.taohansen.dscatalog.projections.ProductSearchProjection;
 import com.taohansen.dscatalog.repositories.CategoryRepository;
 import com.taohansen.dscatalog.repositories.ProductRepository;
+import com.taohansen.dscatalog.repositories.ProductViewRepository;
+import com.taohansen.dscatalog.services.events.ProductChangedEvent;
 import com.taohansen.dscatalog.services.exceptions.DatabaseException;
 import com.taohansen.dscatalog.services.exceptions.ResourceNotFoundException;
+import com.taohansen.dscatalog.services.search.CategoryBitmapIndex;
+import com.taohansen.dscatalog.services.search.CategoryFilter;
+import com.taohansen.dscatalog.services.search.ProductCursor;
+import com.taohansen.dscatalog.services.search.ProductFields;
+import com.taohansen.dscatalog.services.search.ProductNameIndex;
+import com.taohansen.dscatalog.services.search.ProductSearchCache;
+import com.taohansen.dscatalog.services.search.ProductSearchIndex;
+import com.taohansen.dscatalog.services.version.ResourceVersion;
+import com.taohansen.dscatalog.services.view.ProductViewService;
 import com.taohansen.dscatalog.util.Utils;
 import jakarta.persistence.EntityNotFoundException;
+import org.roaringbitmap.RoaringBitmap;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.Arrays;
+import java.time.Instant;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class ProductService {
@@ -30,32 +57,152 @@ public class ProductService {
     @Autowired
     private ProductRepository repository;
 
+    @Autowired
+    private ProductViewRepository viewRepository;
+
+    @Autowired
+    private ProductViewService viewService;
+
     @Autowired
     private CategoryRepository categoryRepository;
 
-    @Transactional(readOnly = true)
-    public Page<ProductDTO> findAllPaged(String name, String categoryId, Pageable pageable) {
-        List<Long> categoryIds = List.of();
-        if(!"0".equals(categoryId)){
-            categoryIds = Arrays.stream(categoryId.split(",")).map(Long::parseLong).toList();
+    @Autowired
+    private ProductSearchIndex searchIndex;
+
+    @Autowired
+    private CategoryBitmapIndex categoryIndex;
+
+    @Autowired
+    private ProductNameIndex nameIndex;
+
+    @Autowired
+    private ProductSearchCache searchCache;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${catalog.search.bitmap.max-ids}")
+    private int maxCandidateIds;
+
+    public Page<ProductDTO> findAllPaged(String name, CategoryFilter categories, Pageable pageable) {
+        return findAllPaged(name, categories, ProductFields.ALL, pageable);
+    }
+
+    public Page<ProductDTO> findAllPaged(String name, CategoryFilter categories, ProductFields fields, Pageable pageable) {
+        return searchCache.get(name, categories, fields, pageable, () -> search(name, categories, fields, pageable));
+    }
+
+    private Page<ProductDTO> search(String name, CategoryFilter categories, ProductFields fields, Pageable pageable) {
+        RoaringBitmap candidates = selectCandidates(categories);
+        if (candidates != null && candidates.isEmpty()) {
+            return new PageImpl<>(List.of(), pageable, 0L);
+        }
+        // what the candidates do not resolve is left to the database
+        CategoryFilter remaining = candidates == null ? categories : CategoryFilter.EMPTY;
+        Long[] ids = candidates == null ? null : toArray(candidates);
+        if (!fields.isAll()) {
+            return repository.searchProductFields(fields, ids, remaining, name, pageable);
         }
-        Page<ProductProjection> page = repository.searchProducts(categoryIds, name, pageable );
+        if (searchIndex.supports(name, pageable)) {
+            return findAllIndexed(name, candidates, remaining, pageable);
+        }
+
+        boolean filtered = ids != null;
+        Long[] productIds = filtered ? ids : new Long[0];
+        Long[] anyOf = toArray(remaining.getAnyOf());
+        Long[] allOf = toArray(remaining.getAllOf());
+        Long[] noneOf = toArray(remaining.getNoneOf());
+        List<ProductSearchProjection> rows = viewRepository.searchPage(filtered, productIds, anyOf, allOf, noneOf, name, pageable);
+        long total;
+        if (!rows.isEmpty()) {
+            total = rows.get(0).getTotal();
+        } else {
+            total = pageable.isPaged() && pageable.getOffset() > 0
+                    ? viewRepository.countPage(filtered, productIds, anyOf, allOf, noneOf, name) : 0L;
+        }
+
+        List<ProductDTO> dtos = rows.stream().map(ProductDTO::new).toList();
+        return new PageImpl<>(dtos, pageable, total);
+    }
+
+    private Page<ProductDTO> findAllIndexed(String name, RoaringBitmap candidates, CategoryFilter categories, Pageable pageable) {
+        Page<ProductProjection> page = searchIndex.search(name, candidates, categories, pageable);
         List<Long> productIds = page.map(ProductProjection::getId).toList();
 
-        List<Product> entities = repository.searchProductsWithCategories(productIds);
+        List<ProductView> views = viewRepository.findByIdIn(productIds);
 
-        entities = (List<Product>) Utils.replace(page.getContent(), entities);
+        views = (List<ProductView>) Utils.replace(page.getContent(), views);
 
-        List<ProductDTO> dtos = entities.stream().map(p -> new ProductDTO(p,p.getCategories())).toList();
+        List<ProductDTO> dtos = views.stream().map(ProductDTO::new).toList();
 
         return new PageImpl<>(dtos, page.getPageable(), page.getTotalElements());
     }
 
+    @Transactional(readOnly = true)
+    public CursorPageDTO<ProductDTO> findAllPaged(String name, CategoryFilter categories, String after, Pageable pageable) {
+        ProductCursor cursor = after.isEmpty() ? ProductCursor.first(pageable.getSort()) : ProductCursor.decode(after);
+        int size = pageable.getPageSize();
+        RoaringBitmap candidates = selectCandidates(categories);
+        if (candidates != null && candidates.isEmpty()) {
+            return new CursorPageDTO<>(List.of(), size, null);
+        }
+
+        List<Long> productIds = candidates == null
+                ? repository.seekProducts(null, categories, name, cursor, size + 1)
+                : repository.seekProducts(toArray(candidates), CategoryFilter.EMPTY, name, cursor, size + 1);
+        boolean hasNext = productIds.size() > size;
+        if (hasNext) {
+            productIds = productIds.subList(0, size);
+        }
+
+        List<ProductView> views = viewRepository.findByIdIn(productIds);
+        Map<Long, ProductView> byId = views.stream().collect(Collectors.toMap(ProductView::getId, Function.identity()));
+        List<ProductDTO> dtos = productIds.stream().map(byId::get).map(ProductDTO::new).toList();
+
+        String next = hasNext ? cursor.next(dtos.get(dtos.size() - 1)).encode() : null;
+        return new CursorPageDTO<>(dtos, size, next);
+    }
+
+    @Transactional(readOnly = true)
+    public List<CategoryFacetDTO> findCategoryFacets(String name) {
+        Map<Long, Long> counts;
+        if (name.isEmpty()) {
+            counts = categoryIndex.countByCategory(null);
+        } else if (searchIndex.supports(name, Pageable.unpaged())) {
+            counts = categoryIndex.countByCategory(searchIndex.matching(name));
+        } else {
+            counts = repository.countByCategory(name).stream()
+                    .collect(Collectors.toMap(CategoryCountProjection::getCategoryId, CategoryCountProjection::getTotal));
+        }
+        return categoryRepository.findAll(Sort.by("name")).stream()
+                .map(category -> new CategoryFacetDTO(category, counts.getOrDefault(category.getId(), 0L))).toList();
+    }
+
+    public List<String> suggest(String prefix, int limit) {
+        return nameIndex.suggest(prefix, limit);
+    }
+
+    // synchronized loads run inside Caffeine's compute, which an eviction waits for and then removes, so a load that
+    // read the product before a write committed cannot put it back after the write's eviction
+    @Cacheable(cacheNames = "products", key = "#id", sync = true)
     @Transactional(readOnly = true)
     public ProductDTO findById(Long id) {
-        Optional<Product> obj = repository.findById(id);
-        Product entity = obj.orElseThrow(() -> new ResourceNotFoundException("Entity Product not found."));
-        return new ProductDTO(entity, entity.getCategories());
+        Optional<ProductView> obj = viewRepository.findById(id);
+        ProductView view = obj.orElseThrow(() -> new ResourceNotFoundException("Entity Product not found."));
+        return new ProductDTO(view);
+    }
+
+    @Transactional(readOnly = true)
+    public ResourceVersion findVersion(Long id) {
+        return repository.findModifiedById(id)
+                .map(obj -> ResourceVersion.of("product-" + id, obj.getCreatedAt(), obj.getUpdatedAt(), obj.getCategoriesModifiedAt()))
+                .orElseThrow(() -> new ResourceNotFoundException("Entity Product not found."));
+    }
+
+    @Transactional(readOnly = true)
+    public ProductDTO findFieldsById(Long id, ProductFields fields) {
+        return repository.findProductFieldsById(fields, id)
+                .orElseThrow(() -> new ResourceNotFoundException("Entity Product not found."));
     }
 
     @Transactional
@@ -63,33 +210,66 @@ public class ProductService {
         Product entity = new Product();
         copyDtoToEntity(dto, entity);
         entity = repository.save(entity);
+        viewService.refresh(List.of(entity.getId()));
+        eventPublisher.publishEvent(ProductChangedEvent.inserted(entity));
         return new ProductDTO(entity);
     }
 
+    @CacheEvict(cacheNames = "products", key = "#id")
     @Transactional
     public ProductDTO update(Long id, ProductDTO dto) {
         try {
             Product entity = repository.getReferenceById(id);
+            String previousName = entity.getName();
+            Set<Long> previousCategoryIds = ProductChangedEvent.categoryIds(entity);
             copyDtoToEntity(dto, entity);
+            // a category-only change does not dirty the row, so @PreUpdate alone would miss it
+            entity.setUpdatedAt(Instant.now());
             entity = repository.save(entity);
+            viewService.refresh(List.of(id));
+            eventPublisher.publishEvent(ProductChangedEvent.updated(previousName, previousCategoryIds, entity));
             return new ProductDTO(entity);
         } catch (EntityNotFoundException e) {
             throw new ResourceNotFoundException("Id " + id + " not found");
         }
     }
 
-    @Transactional(propagation = Propagation.SUPPORTS)
+    @CacheEvict(cacheNames = "products", key = "#id")
+    @Transactional
     public void delete(Long id) {
         if (!repository.existsById(id)) {
             throw new ResourceNotFoundException("Product id (" + id + ") not found.");
         }
+        List<ProductCategoryProjection> previous = repository.searchProductCategoriesById(id);
         try {
             repository.deleteById(id);
+            // surfaces a constraint violation here rather than at commit, outside the try
+            repository.flush();
+            viewService.refresh(List.of(id));
+            eventPublisher.publishEvent(ProductChangedEvent.deleted(id,
+                    previous.isEmpty() ? null : previous.get(0).getName(),
+                    previous.stream().map(ProductCategoryProjection::getCategoryId).filter(Objects::nonNull).collect(Collectors.toSet())));
         } catch (DataIntegrityViolationException e) {
             throw new DatabaseException("Database Integrity Violation");
         }
     }
 
+    /**
+     * Resolves the category filter to product ids when it is selective enough to prune by, or returns null when the
+     * filter is empty or matches too many products to bind as an id list.
+     */
+    private RoaringBitmap selectCandidates(CategoryFilter categories) {
+        return categories.isEmpty() ? null : categoryIndex.select(categories, maxCandidateIds);
+    }
+
+    private static Long[] toArray(RoaringBitmap bitmap) {
+        return bitmap.stream().mapToObj(Long::valueOf).toArray(Long[]::new);
+    }
+
+    private static Long[] toArray(List<Long> ids) {
+        return ids.toArray(Long[]::new);
+    }
+
     private void copyDtoToEntity(ProductDTO dto, Product entity) {
         entity.setName(dto.getName());
         entity.setDescription(dto.getDescription());
@@ -0,0 +1,60 @@
+package com.taohansen.dscatalog.services;
+
+import com.taohansen.dscatalog.projections.UserDetailsProjection;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Caches the credential hash and roles of each user by email, so that repeated logins skip the user and role join.
+ * Unknown emails are not cached. Evictions made inside a transaction wait for its commit.
+ */
+@Component
+public class UserDetailsCache {
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    private Cache cache;
+
+    @PostConstruct
+    void init() {
+        cache = cacheManager.getCache("userDetails");
+    }
+
+    public CachedUser get(String username, Supplier<CachedUser> loader) {
+        if (CacheSupport.inWriteTransaction()) {
+            return loader.get();
+        }
+        try {
+            return cache.get(username, loader::get);
+        } catch (Cache.ValueRetrievalException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    public void evict(String username) {
+        if (username != null) {
+            cache.evict(username);
+        }
+    }
+
+    public record CachedUser(String username, String password, List<CachedRole> roles) {
+
+        public static CachedUser of(List<UserDetailsProjection> rows) {
+            List<CachedRole> roles = rows.stream().map(row -> new CachedRole(row.getRoleId(), row.getAuthority())).toList();
+            return new CachedUser(rows.get(0).getUsername(), rows.get(0).getPassword(), roles);
+        }
+    }
+
+    public record CachedRole(Long id, String authority) {
+    }
+}
@@ -17,6 +17,7 @@ import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -28,7 +29,7 @@ import java.util.List;
 import java.util.Optional;
 
 @Service
-public class UserService implements UserDetailsService {
+public class UserService implements UserDetailsService, UserDetailsPasswordService {
 
     @Autowired
     private PasswordEncoder passwordEncoder;
@@ -38,6 +39,8 @@ public class UserService implements UserDetailsService {
     private RoleRepository roleRepository;
     @Autowired
     private AuthService authService;
+    @Autowired
+    private UserDetailsCache userDetailsCache;
 
     @Transactional(readOnly = true)
     public Page<UserDTO> findAllPaged(Pageable pageable) {
@@ -76,8 +79,10 @@ public class UserService implements UserDetailsService {
     public UserDTO update(Long id, UserUpdateDTO dto) {
         try {
             User entity = repository.getReferenceById(id);
+            userDetailsCache.evict(entity.getEmail());
             copyDtoToEntity(dto, entity);
             entity = repository.save(entity);
+            userDetailsCache.evict(entity.getEmail());
             return new UserDTO(entity);
         } catch (EntityNotFoundException e) {
             throw new ResourceNotFoundException("Id " + id + " not found");
@@ -86,11 +91,11 @@ public class UserService implements UserDetailsService {
 
     @Transactional(propagation = Propagation.SUPPORTS)
     public void delete(Long id) {
-        if (!repository.existsById(id)) {
-            throw new ResourceNotFoundException("User id (" + id + ") not found.");
-        }
+        User entity = repository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("User id (" + id + ") not found."));
         try {
             repository.deleteById(id);
+            userDetailsCache.evict(entity.getEmail());
         } catch (DataIntegrityViolationException e) {
             throw new DatabaseException("Database Integrity Violation");
         }
@@ -110,17 +115,34 @@ public class UserService implements UserDetailsService {
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        List<UserDetailsProjection> result = repository.searchUserAndRolesByEmail(username);
-        if (result.size() == 0) {
-            throw new UsernameNotFoundException("Email not found");
-        }
+        UserDetailsCache.CachedUser cached = userDetailsCache.get(username, () -> {
+            List<UserDetailsProjection> result = repository.searchUserAndRolesByEmail(username);
+            if (result.size() == 0) {
+                throw new UsernameNotFoundException("Email not found");
+            }
+            return UserDetailsCache.CachedUser.of(result);
+        });
         User user = new User();
-        user.setEmail(result.get(0).getUsername());
-        user.setPassword(result.get(0).getPassword());
-        for (UserDetailsProjection projection : result) {
-            user.addRole(new Role(projection.getRoleId(), projection.getAuthority()));
+        user.setEmail(cached.username());
+        user.setPassword(cached.password());
+        for (UserDetailsCache.CachedRole role : cached.roles()) {
+            user.addRole(new Role(role.id(), role.authority()));
         }
 
         return user;
     }
+
+    /**
+     * Stores a password re-encoded after a successful login, when the stored hash is outdated.
+     */
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        repository.updatePassword(user.getUsername(), newPassword);
+        userDetailsCache.evict(user.getUsername());
+        if (user instanceof User entity) {
+            entity.setPassword(newPassword);
+        }
+        return user;
+    }
 }
@@ -0,0 +1,24 @@
+package com.taohansen.dscatalog.services.events;
+
+import java.util.List;
+
+public class CategoryChangedEvent {
+    private final Long id;
+    private final List<Long> productIds;
+
+    public CategoryChangedEvent(Long id, List<Long> productIds) {
+        this.id = id;
+        this.productIds = productIds;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    /**
+     * Products whose representation changed with the category, e.g. after a rename.
+     */
+    public List<Long> getProductIds() {
+        return productIds;
+    }
+}
@@ -0,0 +1,13 @@
+package com.taohansen.dscatalog.services.events;
+
+public class EmailQueuedEvent {
+    private final Long id;
+
+    public EmailQueuedEvent(Long id) {
+        this.id = id;
+    }
+
+    public Long getId() {
+        return id;
+    }
+}
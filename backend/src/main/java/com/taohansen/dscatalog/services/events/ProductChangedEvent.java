@@ -0,0 +1,81 @@
+package com.taohansen.dscatalog.services.events;
+
+import com.taohansen.dscatalog.entities.Category;
+import com.taohansen.dscatalog.entities.Product;
+
+import java.util.Set;
+import java.util.stream.Collectors;
+
+public class ProductChangedEvent {
+    private final Long id;
+    private final String name;
+    private final Set<Long> categoryIds;
+    private final boolean deleted;
+    private final String previousName;
+    private final Set<Long> previousCategoryIds;
+
+    private ProductChangedEvent(Long id, String name, Set<Long> categoryIds, boolean deleted,
+                                String previousName, Set<Long> previousCategoryIds) {
+        this.id = id;
+        this.name = name;
+        this.categoryIds = categoryIds;
+        this.deleted = deleted;
+        this.previousName = previousName;
+        this.previousCategoryIds = previousCategoryIds;
+    }
+
+    public static ProductChangedEvent saved(Product entity) {
+        return new ProductChangedEvent(entity.getId(), entity.getName(), categoryIds(entity), false, null, null);
+    }
+
+    public static ProductChangedEvent inserted(Product entity) {
+        return new ProductChangedEvent(entity.getId(), entity.getName(), categoryIds(entity), false, null, Set.of());
+    }
+
+    public static ProductChangedEvent updated(String previousName, Set<Long> previousCategoryIds, Product entity) {
+        return new ProductChangedEvent(entity.getId(), entity.getName(), categoryIds(entity), false, previousName, previousCategoryIds);
+    }
+
+    public static ProductChangedEvent deleted(Long id) {
+        return new ProductChangedEvent(id, null, Set.of(), true, null, null);
+    }
+
+    public static ProductChangedEvent deleted(Long id, String previousName, Set<Long> previousCategoryIds) {
+        return new ProductChangedEvent(id, null, Set.of(), true, previousName, previousCategoryIds);
+    }
+
+    public static Set<Long> categoryIds(Product entity) {
+        return entity.getCategories().stream().map(Category::getId).collect(Collectors.toSet());
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Set<Long> getCategoryIds() {
+        return categoryIds;
+    }
+
+    public boolean isDeleted() {
+        return deleted;
+    }
+
+    public String getPreviousName() {
+        return previousName;
+    }
+
+    public Set<Long> getPreviousCategoryIds() {
+        return previousCategoryIds;
+    }
+
+    /**
+     * Whether the state before the change is known. Unknown previous state must be treated as matching anything.
+     */
+    public boolean isPreviousKnown() {
+        return previousCategoryIds != null;
+    }
+}
@@ -0,0 +1,23 @@
+package com.taohansen.dscatalog.services.events;
+
+import com.taohansen.dscatalog.entities.Product;
+
+import java.util.List;
+
+/**
+ * Products inserted together, e.g. one import chunk, so that listeners update once per batch instead of once per row.
+ */
+public class ProductsInsertedEvent {
+    private final List<ProductChangedEvent> products;
+
+    public ProductsInsertedEvent(List<Product> entities) {
+        this.products = entities.stream().map(ProductChangedEvent::inserted).toList();
+    }
+
+    /**
+     * One insert per product, with its id, name and categories.
+     */
+    public List<ProductChangedEvent> getProducts() {
+        return products;
+    }
+}
@@ -0,0 +1,7 @@
+package com.taohansen.dscatalog.services.exceptions;
+
+public class BadRequestException extends RuntimeException {
+    public BadRequestException(String msg) {
+        super(msg);
+    }
+}
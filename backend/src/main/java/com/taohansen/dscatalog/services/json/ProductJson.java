@@ -0,0 +1,74 @@
+package com.taohansen.dscatalog.services.json;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A product already serialized to JSON, with its gzip-compressed form and the entity tag of the version it was
+ * serialized from. Inside a larger document, such as a page, it is written as a raw value.
+ */
+public final class ProductJson implements JsonSerializable {
+
+    private final byte[] json;
+    private final byte[] gzip;
+    private final String tag;
+
+    private ProductJson(byte[] json, byte[] gzip, String tag) {
+        this.json = json;
+        this.gzip = gzip;
+        this.tag = tag;
+    }
+
+    /**
+     * @param tag the entity tag of the version read before the product was loaded, or null when unknown
+     */
+    public static ProductJson of(byte[] json, String tag) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 2 + 32);
+        try (GZIPOutputStream gzipOut = new GZIPOutputStream(out)) {
+            gzipOut.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new ProductJson(json, out.toByteArray(), tag);
+    }
+
+    /**
+     * The caller must not modify the returned array.
+     */
+    public byte[] json() {
+        return json;
+    }
+
+    /**
+     * The caller must not modify the returned array.
+     */
+    public byte[] gzip() {
+        return gzip;
+    }
+
+    public String tag() {
+        return tag;
+    }
+
+    public int size() {
+        return json.length + gzip.length;
+    }
+
+    @Override
+    public void serialize(JsonGenerator gen, SerializerProvider serializers) throws IOException {
+        gen.writeRawValue(new String(json, StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public void serializeWithType(JsonGenerator gen, SerializerProvider serializers, TypeSerializer typeSer) throws IOException {
+        serialize(gen, serializers);
+    }
+}
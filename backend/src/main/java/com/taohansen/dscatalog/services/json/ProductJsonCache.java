@@ -0,0 +1,111 @@
+package com.taohansen.dscatalog.services.json;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.taohansen.dscatalog.dto.ProductDTO;
+import com.taohansen.dscatalog.services.CacheSupport;
+import com.taohansen.dscatalog.services.events.CategoryChangedEvent;
+import com.taohansen.dscatalog.services.events.ProductChangedEvent;
+import com.taohansen.dscatalog.services.events.ProductsInsertedEvent;
+import com.taohansen.dscatalog.services.version.ResourceVersion;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.Page;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * Caches the serialized JSON of each full product, so that reads by id and listing pages skip Jackson's bean
+ * serialization. Entries are evicted once a product or category write commits, and each one remembers the version
+ * it was loaded under, so that a body is never served with the entity tag of another version.
+ */
+@Component
+public class ProductJsonCache {
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private Cache cache;
+    private Cache dtoCache;
+
+    @PostConstruct
+    void init() {
+        cache = cacheManager.getCache("productJson");
+        dtoCache = cacheManager.getCache("products");
+    }
+
+    /**
+     * Returns the JSON of the product at the given version. The loader must read the product after the version was
+     * read, so that the body is never older than the tag it is cached under.
+     */
+    public ProductJson get(Long id, ResourceVersion version, Supplier<ProductDTO> loader) {
+        if (CacheSupport.inWriteTransaction()) {
+            return serialize(loader.get(), version.tag());
+        }
+        ProductJson json;
+        try {
+            json = cache.get(id, () -> serialize(loader.get(), version.tag()));
+        } catch (Cache.ValueRetrievalException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+        if (!Objects.equals(json.tag(), version.tag())) {
+            // loaded under another version, either an older one whose eviction is still on its way or a newer one
+            // that this request has not seen yet
+            json = serialize(loader.get(), version.tag());
+            cache.put(id, json);
+        }
+        return json;
+    }
+
+    /**
+     * Swaps every product of the page for its cached JSON. Products that are not cached are serialized from the
+     * page but not cached, since the page may have been read before a write that the cache has already seen.
+     */
+    public Page<ProductJson> fragments(Page<ProductDTO> page) {
+        return page.map(dto -> {
+            ProductJson json = cache.get(dto.getId(), ProductJson.class);
+            return json != null ? json : serialize(dto, null);
+        });
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        evict(event.getId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductsInserted(ProductsInsertedEvent event) {
+        event.getProducts().forEach(product -> evict(product.getId()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        event.getProductIds().forEach(this::evict);
+    }
+
+    private void evict(Long id) {
+        // the DTO goes first so that a concurrent reload cannot serialize a stale one; evictIfPresent is immediate,
+        // while evict would wait for a commit that has already happened
+        dtoCache.evictIfPresent(id);
+        cache.evictIfPresent(id);
+    }
+
+    private ProductJson serialize(ProductDTO dto, String tag) {
+        try {
+            return ProductJson.of(objectMapper.writeValueAsBytes(dto), tag);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize product " + dto.getId(), e);
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.taohansen.dscatalog.services.outbox;
+
+import com.taohansen.dscatalog.entities.EmailOutbox;
+import com.taohansen.dscatalog.repositories.EmailOutboxRepository;
+import com.taohansen.dscatalog.services.EmailService;
+import com.taohansen.dscatalog.services.events.EmailQueuedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Drains {@code tb_email_outbox} in batches: right after a queuing transaction commits and on a fixed delay for
+ * retries. Rows are claimed with a lease, sent outside any transaction, then marked sent or rescheduled with
+ * exponential backoff until {@code max-attempts} is reached.
+ */
+@Component
+public class EmailOutboxDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(EmailOutboxDispatcher.class);
+
+    @Autowired
+    private EmailOutboxRepository repository;
+
+    @Autowired
+    private EmailService emailService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private TaskScheduler taskScheduler;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${catalog.email.outbox.batch-size}")
+    private int batchSize;
+
+    @Value("${catalog.email.outbox.poll-interval}")
+    private Duration pollInterval;
+
+    @Value("${catalog.email.outbox.lease}")
+    private Duration lease;
+
+    @Value("${catalog.email.outbox.max-attempts}")
+    private int maxAttempts;
+
+    @Value("${catalog.email.outbox.backoff}")
+    private Duration backoff;
+
+    @Value("${catalog.email.outbox.max-backoff}")
+    private Duration maxBackoff;
+
+    private final ReentrantLock draining = new ReentrantLock();
+    private final AtomicLong pending = new AtomicLong();
+    private Counter sent;
+    private Counter retried;
+    private Counter failed;
+    private Timer batchTimer;
+
+    @PostConstruct
+    void init() {
+        sent = Counter.builder("catalog.email.outbox.sent").register(meterRegistry);
+        retried = Counter.builder("catalog.email.outbox.retried").register(meterRegistry);
+        failed = Counter.builder("catalog.email.outbox.failed")
+                .description("Emails given up after the last attempt")
+                .register(meterRegistry);
+        batchTimer = Timer.builder("catalog.email.outbox.batch")
+                .description("Time to send one batch over a single SMTP connection")
+                .register(meterRegistry);
+        Gauge.builder("catalog.email.outbox.pending", pending, AtomicLong::get)
+                .description("Pending emails after the last drain")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        taskScheduler.scheduleWithFixedDelay(this::drain, pollInterval);
+    }
+
+    @Async
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onQueued(EmailQueuedEvent event) {
+        drain();
+    }
+
+    /**
+     * Sends every due email. Returns at once when a drain is already running in this instance.
+     *
+     * @return number of emails attempted
+     */
+    public int drain() {
+        if (!draining.tryLock()) {
+            return 0;
+        }
+        try {
+            int attempted = 0;
+            List<EmailOutbox> batch;
+            do {
+                batch = claim();
+                if (!batch.isEmpty()) {
+                    deliver(batch);
+                    attempted += batch.size();
+                }
+            } while (batch.size() == batchSize);
+            pending.set(repository.countByStatus(EmailOutbox.Status.PENDING));
+            return attempted;
+        } catch (RuntimeException e) {
+            log.warn("Email outbox drain failed", e);
+            return 0;
+        } finally {
+            draining.unlock();
+        }
+    }
+
+    private List<EmailOutbox> claim() {
+        return transactionTemplate.execute(status -> {
+            Instant now = Instant.now();
+            List<EmailOutbox> due = repository.findDue(EmailOutbox.Status.PENDING, now, PageRequest.of(0, batchSize));
+            // leased rows are skipped by other dispatchers until the lease runs out
+            due.forEach(email -> email.setNextAttemptAt(now.plus(lease)));
+            return due;
+        });
+    }
+
+    private void deliver(List<EmailOutbox> batch) {
+        Map<Long, String> failures = batchTimer.record(() -> emailService.deliver(batch));
+        Instant now = Instant.now();
+        for (EmailOutbox email : batch) {
+            String error = failures.get(email.getId());
+            if (error == null) {
+                email.setStatus(EmailOutbox.Status.SENT);
+                email.setSentAt(now);
+                email.setLastError(null);
+                sent.increment();
+                continue;
+            }
+            email.setAttempts(email.getAttempts() + 1);
+            email.setLastError(error.length() > 1000 ? error.substring(0, 1000) : error);
+            if (email.getAttempts() >= maxAttempts) {
+                email.setStatus(EmailOutbox.Status.FAILED);
+                failed.increment();
+                log.warn("Email {} to {} failed after {} attempts: {}", email.getId(), email.getRecipient(), email.getAttempts(), error);
+            } else {
+                email.setNextAttemptAt(now.plus(backoff(email.getAttempts())));
+                retried.increment();
+            }
+        }
+        transactionTemplate.executeWithoutResult(status -> repository.saveAll(batch));
+    }
+
+    private Duration backoff(int attempts) {
+        Duration delay = backoff.multipliedBy(1L << Math.min(attempts - 1, 20));
+        return delay.compareTo(maxBackoff) > 0 ? maxBackoff : delay;
+    }
+}
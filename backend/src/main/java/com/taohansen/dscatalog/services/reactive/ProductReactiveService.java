@@ -0,0 +1,35 @@
+package com.taohansen.dscatalog.services.reactive;
+
+import com.taohansen.dscatalog.dto.CategoryDTO;
+import com.taohansen.dscatalog.dto.ProductDTO;
+import com.taohansen.dscatalog.repositories.reactive.ProductReactiveRepository;
+import com.taohansen.dscatalog.services.exceptions.ResourceNotFoundException;
+import com.taohansen.dscatalog.services.search.CategoryFilter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Read-only catalog queries on the reactive stack. Writes stay on {@link com.taohansen.dscatalog.services.ProductService}.
+ */
+@Service
+public class ProductReactiveService {
+
+    @Autowired
+    private ProductReactiveRepository repository;
+
+    public Flux<ProductDTO> findAllPaged(String name, CategoryFilter categories, Pageable pageable) {
+        return repository.searchPage(name, categories.getAnyOf(), pageable);
+    }
+
+    public Mono<ProductDTO> findById(Long id) {
+        return repository.findById(id)
+                .switchIfEmpty(Mono.error(() -> new ResourceNotFoundException("Entity Product not found.")));
+    }
+
+    public Flux<CategoryDTO> findAllCategories() {
+        return repository.findAllCategories();
+    }
+}
@@ -0,0 +1,157 @@
+package com.taohansen.dscatalog.services.search;
+
+import com.taohansen.dscatalog.projections.ProductCategoryProjection;
+import com.taohansen.dscatalog.repositories.ProductRepository;
+import com.taohansen.dscatalog.services.events.ProductChangedEvent;
+import com.taohansen.dscatalog.services.events.ProductsInsertedEvent;
+import org.roaringbitmap.FastAggregation;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Compressed bitmap of product ids per category, so category filters are evaluated as bitmap unions,
+ * intersections and differences instead of joins.
+ */
+@Component
+public class CategoryBitmapIndex {
+
+    @Autowired
+    private ProductRepository repository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, RoaringBitmap> categories = new HashMap<>();
+    private final RoaringBitmap categorized = new RoaringBitmap();
+    private volatile boolean ready;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            categories.clear();
+            categorized.clear();
+            for (ProductCategoryProjection row : repository.searchProductCategories()) {
+                if (row.getCategoryId() != null) {
+                    int id = Math.toIntExact(row.getId());
+                    categories.computeIfAbsent(row.getCategoryId(), key -> new RoaringBitmap()).add(id);
+                    categorized.add(id);
+                }
+            }
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        int id = Math.toIntExact(event.getId());
+        lock.writeLock().lock();
+        try {
+            categories.values().forEach(bitmap -> bitmap.remove(id));
+            categorized.remove(id);
+            for (Long categoryId : event.getCategoryIds()) {
+                categories.computeIfAbsent(categoryId, key -> new RoaringBitmap()).add(id);
+                categorized.add(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductsInserted(ProductsInsertedEvent event) {
+        lock.writeLock().lock();
+        try {
+            // new ids, so there is nothing to remove first
+            for (ProductChangedEvent product : event.getProducts()) {
+                int id = Math.toIntExact(product.getId());
+                for (Long categoryId : product.getCategoryIds()) {
+                    categories.computeIfAbsent(categoryId, key -> new RoaringBitmap()).add(id);
+                    categorized.add(id);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public RoaringBitmap select(CategoryFilter filter) {
+        return select(filter, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns the products that match the filter, or null when there are more than maxIds of them: such a set costs
+     * more to bind as an id list than the database takes to evaluate the filter itself.
+     */
+    public RoaringBitmap select(CategoryFilter filter, int maxIds) {
+        if (!ready) {
+            rebuild();
+        }
+        lock.readLock().lock();
+        try {
+            List<RoaringBitmap> required = filter.getAllOf().stream().map(this::bitmap)
+                    .sorted(Comparator.comparingInt(RoaringBitmap::getCardinality)).toList();
+            RoaringBitmap result;
+            if (!filter.getAnyOf().isEmpty()) {
+                result = union(filter.getAnyOf());
+            } else if (!required.isEmpty()) {
+                // every categorized product of the smallest required category
+                result = required.get(0).clone();
+                required = required.subList(1, required.size());
+            } else {
+                // only exclusions: size the result before copying the categorized set
+                RoaringBitmap excluded = union(filter.getNoneOf());
+                if (RoaringBitmap.andNotCardinality(categorized, excluded) > maxIds) {
+                    return null;
+                }
+                return RoaringBitmap.andNot(categorized, excluded);
+            }
+            for (RoaringBitmap bitmap : required) {
+                if (result.isEmpty()) {
+                    break;
+                }
+                result.and(bitmap);
+            }
+            if (!filter.getNoneOf().isEmpty() && !result.isEmpty()) {
+                result.andNot(union(filter.getNoneOf()));
+            }
+            return result.getLongCardinality() > maxIds ? null : result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Map<Long, Long> countByCategory(RoaringBitmap productIds) {
+        if (!ready) {
+            rebuild();
+        }
+        lock.readLock().lock();
+        try {
+            Map<Long, Long> result = new HashMap<>();
+            categories.forEach((categoryId, bitmap) -> result.put(categoryId, productIds == null
+                    ? bitmap.getLongCardinality() : RoaringBitmap.andCardinality(bitmap, productIds)));
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private RoaringBitmap union(List<Long> categoryIds) {
+        return FastAggregation.or(categoryIds.stream().map(this::bitmap).toArray(RoaringBitmap[]::new));
+    }
+
+    private RoaringBitmap bitmap(Long categoryId) {
+        return categories.getOrDefault(categoryId, new RoaringBitmap());
+    }
+}
@@ -0,0 +1,78 @@
+package com.taohansen.dscatalog.services.search;
+
+import com.taohansen.dscatalog.services.exceptions.BadRequestException;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Category expression of a product listing: in any of, in all of and in none of the given categories.
+ */
+public class CategoryFilter {
+
+    public static final CategoryFilter EMPTY = new CategoryFilter(List.of(), List.of(), List.of());
+
+    private final List<Long> anyOf;
+    private final List<Long> allOf;
+    private final List<Long> noneOf;
+
+    private CategoryFilter(List<Long> anyOf, List<Long> allOf, List<Long> noneOf) {
+        this.anyOf = anyOf;
+        this.allOf = allOf;
+        this.noneOf = noneOf;
+    }
+
+    public static CategoryFilter parse(String anyOf, String allOf, String noneOf) {
+        return new CategoryFilter(parseIds(anyOf), parseIds(allOf), parseIds(noneOf));
+    }
+
+    private static List<Long> parseIds(String value) {
+        if (value == null || value.isBlank() || "0".equals(value)) {
+            return List.of();
+        }
+        try {
+            return Arrays.stream(value.split(",")).map(String::trim).map(Long::parseLong).distinct().toList();
+        } catch (NumberFormatException e) {
+            throw new BadRequestException("Invalid category filter");
+        }
+    }
+
+    public boolean isEmpty() {
+        return anyOf.isEmpty() && allOf.isEmpty() && noneOf.isEmpty();
+    }
+
+    public List<Long> getAnyOf() {
+        return anyOf;
+    }
+
+    public List<Long> getAllOf() {
+        return allOf;
+    }
+
+    public List<Long> getNoneOf() {
+        return noneOf;
+    }
+
+    public boolean matches(Set<Long> categoryIds) {
+        if (categoryIds.isEmpty()) {
+            return false;
+        }
+        boolean any = anyOf.isEmpty() || anyOf.stream().anyMatch(categoryIds::contains);
+        return any && categoryIds.containsAll(allOf) && noneOf.stream().noneMatch(categoryIds::contains);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        CategoryFilter that = (CategoryFilter) o;
+        return anyOf.equals(that.anyOf) && allOf.equals(that.allOf) && noneOf.equals(that.noneOf);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(anyOf, allOf, noneOf);
+    }
+}
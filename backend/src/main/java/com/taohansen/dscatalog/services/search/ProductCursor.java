@@ -0,0 +1,84 @@
+package com.taohansen.dscatalog.services.search;
+
+import com.taohansen.dscatalog.dto.ProductDTO;
+import com.taohansen.dscatalog.services.exceptions.BadRequestException;
+import org.springframework.data.domain.Sort;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque keyset position: the sort key, its direction and the (value, id) of the last row returned. A null value is
+ * encoded by leaving the value part out.
+ */
+public class ProductCursor {
+
+    public static final String NAME = "name";
+    public static final String PRICE = "price";
+
+    private final String sortBy;
+    private final boolean descending;
+    private final String lastValue;
+    private final Long lastId;
+
+    public ProductCursor(String sortBy, boolean descending, String lastValue, Long lastId) {
+        if (!NAME.equals(sortBy) && !PRICE.equals(sortBy)) {
+            throw new BadRequestException("Cursor pagination supports sorting by name or price only");
+        }
+        this.sortBy = sortBy;
+        this.descending = descending;
+        this.lastValue = lastValue;
+        this.lastId = lastId;
+    }
+
+    public static ProductCursor first(Sort sort) {
+        Sort.Order order = sort.stream().findFirst().orElse(Sort.Order.asc(NAME));
+        return new ProductCursor(order.getProperty(), order.isDescending(), null, null);
+    }
+
+    public static ProductCursor decode(String token) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = decoded.split("\\|", 4);
+            boolean descending = "desc".equals(parts[1]);
+            String lastValue = parts.length > 3 ? parts[3] : null;
+            ProductCursor cursor = new ProductCursor(parts[0], descending, lastValue, Long.parseLong(parts[2]));
+            if (cursor.isPriceSort() && lastValue != null) {
+                Double.parseDouble(cursor.lastValue);
+            }
+            return cursor;
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            throw new BadRequestException("Invalid cursor");
+        }
+    }
+
+    public ProductCursor next(ProductDTO last) {
+        String value = isPriceSort() ? (last.getPrice() == null ? null : String.valueOf(last.getPrice())) : last.getName();
+        return new ProductCursor(sortBy, descending, value, last.getId());
+    }
+
+    public String encode() {
+        String raw = sortBy + "|" + (descending ? "desc" : "asc") + "|" + lastId + (lastValue == null ? "" : "|" + lastValue);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public boolean isStart() {
+        return lastId == null;
+    }
+
+    public boolean isPriceSort() {
+        return PRICE.equals(sortBy);
+    }
+
+    public boolean isDescending() {
+        return descending;
+    }
+
+    public String getLastValue() {
+        return lastValue;
+    }
+
+    public Long getLastId() {
+        return lastId;
+    }
+}
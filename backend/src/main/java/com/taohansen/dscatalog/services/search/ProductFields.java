@@ -0,0 +1,65 @@
+package com.taohansen.dscatalog.services.search;
+
+import com.taohansen.dscatalog.services.exceptions.BadRequestException;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Sparse fieldset of a product representation. The id is always part of it.
+ */
+public class ProductFields {
+
+    public static final String FILTER = "productFields";
+    public static final List<String> NAMES = List.of("id", "name", "description", "price", "imgUrl", "date", "categories");
+    public static final ProductFields ALL = new ProductFields(new LinkedHashSet<>(NAMES));
+
+    private final Set<String> names;
+
+    private ProductFields(Set<String> names) {
+        this.names = names;
+    }
+
+    public static ProductFields parse(String value) {
+        if (value == null || value.isBlank()) {
+            return ALL;
+        }
+        Set<String> requested = new LinkedHashSet<>();
+        requested.add("id");
+        for (String name : Arrays.stream(value.split(",")).map(String::trim).toList()) {
+            if (!NAMES.contains(name)) {
+                throw new BadRequestException("Unknown product field: " + name);
+            }
+            requested.add(name);
+        }
+        return requested.size() == NAMES.size() ? ALL : new ProductFields(requested);
+    }
+
+    public boolean isAll() {
+        return names.size() == NAMES.size();
+    }
+
+    public boolean contains(String name) {
+        return names.contains(name);
+    }
+
+    public Set<String> getNames() {
+        return names;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ProductFields that = (ProductFields) o;
+        return names.equals(that.names);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(names);
+    }
+}
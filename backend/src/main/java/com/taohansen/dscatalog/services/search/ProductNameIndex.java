@@ -0,0 +1,295 @@
+package com.taohansen.dscatalog.services.search;
+
+import com.taohansen.dscatalog.projections.ProductCategoryProjection;
+import com.taohansen.dscatalog.repositories.ProductRepository;
+import com.taohansen.dscatalog.services.events.ProductChangedEvent;
+import com.taohansen.dscatalog.services.events.ProductsInsertedEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Prefix index over product names for typeahead, kept as two sorted arrays of keys: whole names, and the text from
+ * every later word start, so "gam" suggests "PC Gamer". A prefix is a contiguous range of each array, found by binary
+ * search. Names that start with the prefix rank first, in alphabetical order; then names where a later word does,
+ * in alphabetical order of the text from that word on.
+ */
+@Component
+public class ProductNameIndex {
+
+    private static final int MAX_LIMIT = 50;
+
+    @Autowired
+    private ProductRepository repository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, String> names = new HashMap<>();
+    private SortedKeys nameKeys = new SortedKeys();
+    private SortedKeys wordKeys = new SortedKeys();
+    private volatile boolean ready;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            names.clear();
+            for (ProductCategoryProjection row : repository.searchProductCategories()) {
+                if (row.getCategoryId() != null && row.getName() != null) {
+                    names.putIfAbsent(row.getId(), row.getName());
+                }
+            }
+            List<Entry> nameEntries = new ArrayList<>();
+            List<Entry> wordEntries = new ArrayList<>();
+            names.forEach((id, name) -> {
+                String text = normalize(name);
+                nameEntries.add(new Entry(text, id));
+                for (int start : wordStarts(text)) {
+                    wordEntries.add(new Entry(text.substring(start), id));
+                }
+            });
+            // sorted once, instead of inserting product by product
+            nameKeys = SortedKeys.of(nameEntries);
+            wordKeys = SortedKeys.of(wordEntries);
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            remove(event.getId());
+            if (!event.isDeleted() && !event.getCategoryIds().isEmpty()) {
+                add(event.getId(), event.getName());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductsInserted(ProductsInsertedEvent event) {
+        lock.writeLock().lock();
+        try {
+            List<Entry> nameEntries = new ArrayList<>();
+            List<Entry> wordEntries = new ArrayList<>();
+            for (ProductChangedEvent product : event.getProducts()) {
+                if (product.getCategoryIds().isEmpty() || product.getName() == null) {
+                    continue;
+                }
+                names.put(product.getId(), product.getName());
+                String text = normalize(product.getName());
+                nameEntries.add(new Entry(text, product.getId()));
+                for (int start : wordStarts(text)) {
+                    wordEntries.add(new Entry(text.substring(start), product.getId()));
+                }
+            }
+            // one merge per array instead of shifting it for every product
+            nameKeys.addAll(nameEntries);
+            wordKeys.addAll(wordEntries);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<String> suggest(String prefix, int limit) {
+        String key = normalize(prefix);
+        int max = Math.min(limit, MAX_LIMIT);
+        // typeahead never waits on the database; until the index is loaded there is nothing to suggest
+        if (!ready || key.isEmpty() || max <= 0) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            Set<String> result = new LinkedHashSet<>();
+            nameKeys.collect(key, names, result, max);
+            wordKeys.collect(key, names, result, max);
+            return new ArrayList<>(result);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void add(Long id, String name) {
+        if (name == null) {
+            return;
+        }
+        names.put(id, name);
+        String text = normalize(name);
+        nameKeys.add(text, id);
+        for (int start : wordStarts(text)) {
+            wordKeys.add(text.substring(start), id);
+        }
+    }
+
+    private void remove(Long id) {
+        String name = names.remove(id);
+        if (name == null) {
+            return;
+        }
+        String text = normalize(name);
+        nameKeys.remove(text, id);
+        for (int start : wordStarts(text)) {
+            wordKeys.remove(text.substring(start), id);
+        }
+    }
+
+    /**
+     * Start of every word but the first, whose key is the whole name.
+     */
+    private static List<Integer> wordStarts(String text) {
+        List<Integer> result = new ArrayList<>();
+        for (int i = 1; i < text.length(); i++) {
+            if (!Character.isWhitespace(text.charAt(i)) && Character.isWhitespace(text.charAt(i - 1))) {
+                result.add(i);
+            }
+        }
+        return result;
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.strip().toLowerCase(Locale.ROOT);
+    }
+
+    private record Entry(String key, long id) implements Comparable<Entry> {
+        @Override
+        public int compareTo(Entry other) {
+            int result = key.compareTo(other.key);
+            return result != 0 ? result : Long.compare(id, other.id);
+        }
+    }
+
+    /**
+     * (key, product id) pairs sorted by key, then id, in parallel arrays that grow by doubling.
+     */
+    private static class SortedKeys {
+        private String[] keys = new String[0];
+        private long[] ids = new long[0];
+        private int size;
+
+        static SortedKeys of(List<Entry> entries) {
+            Collections.sort(entries);
+            SortedKeys result = new SortedKeys();
+            result.keys = new String[entries.size()];
+            result.ids = new long[entries.size()];
+            for (Entry entry : entries) {
+                result.keys[result.size] = entry.key();
+                result.ids[result.size++] = entry.id();
+            }
+            return result;
+        }
+
+        void add(String key, long id) {
+            int index = search(key, id);
+            if (index >= 0) {
+                return;
+            }
+            int at = -index - 1;
+            if (size == keys.length) {
+                int capacity = Math.max(16, size * 2);
+                keys = Arrays.copyOf(keys, capacity);
+                ids = Arrays.copyOf(ids, capacity);
+            }
+            System.arraycopy(keys, at, keys, at + 1, size - at);
+            System.arraycopy(ids, at, ids, at + 1, size - at);
+            keys[at] = key;
+            ids[at] = id;
+            size++;
+        }
+
+        /**
+         * Merges the entries in with one pass over the arrays.
+         */
+        void addAll(List<Entry> entries) {
+            if (entries.isEmpty()) {
+                return;
+            }
+            Collections.sort(entries);
+            String[] mergedKeys = new String[size + entries.size()];
+            long[] mergedIds = new long[size + entries.size()];
+            int merged = 0;
+            int i = 0;
+            int j = 0;
+            while (i < size || j < entries.size()) {
+                int cmp;
+                if (j == entries.size()) {
+                    cmp = -1;
+                } else if (i == size) {
+                    cmp = 1;
+                } else {
+                    Entry entry = entries.get(j);
+                    cmp = keys[i].compareTo(entry.key());
+                    if (cmp == 0) {
+                        cmp = Long.compare(ids[i], entry.id());
+                    }
+                }
+                if (cmp <= 0) {
+                    mergedKeys[merged] = keys[i];
+                    mergedIds[merged++] = ids[i++];
+                    if (cmp == 0) {
+                        j++;
+                    }
+                } else {
+                    Entry entry = entries.get(j++);
+                    if (merged > 0 && mergedKeys[merged - 1].equals(entry.key()) && mergedIds[merged - 1] == entry.id()) {
+                        continue;
+                    }
+                    mergedKeys[merged] = entry.key();
+                    mergedIds[merged++] = entry.id();
+                }
+            }
+            keys = mergedKeys;
+            ids = mergedIds;
+            size = merged;
+        }
+
+        void remove(String key, long id) {
+            int index = search(key, id);
+            if (index < 0) {
+                return;
+            }
+            System.arraycopy(keys, index + 1, keys, index, size - index - 1);
+            System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+            keys[--size] = null;
+        }
+
+        /**
+         * Adds the names of the products whose key starts with the prefix, in key order, until result holds limit.
+         */
+        void collect(String prefix, Map<Long, String> names, Set<String> result, int limit) {
+            // the first key not below the prefix; with the lowest id, no (prefix, id) pair sorts before it
+            int index = -search(prefix, Long.MIN_VALUE) - 1;
+            for (int i = index; i < size && result.size() < limit && keys[i].startsWith(prefix); i++) {
+                result.add(names.get(ids[i]));
+            }
+        }
+
+        private int search(String key, long id) {
+            int low = 0;
+            int high = size - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int cmp = keys[mid].compareTo(key);
+                if (cmp == 0) {
+                    cmp = Long.compare(ids[mid], id);
+                }
+                if (cmp < 0) {
+                    low = mid + 1;
+                } else if (cmp > 0) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -(low + 1);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.taohansen.dscatalog.services.search;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.taohansen.dscatalog.dto.ProductDTO;
+import com.taohansen.dscatalog.services.CacheSupport;
+import com.taohansen.dscatalog.services.events.CategoryChangedEvent;
+import com.taohansen.dscatalog.services.events.ProductChangedEvent;
+import com.taohansen.dscatalog.services.events.ProductsInsertedEvent;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Caches whole listing pages, total included. A product write evicts only the entries whose filter matched the
+ * product before or after the change.
+ */
+@Component
+public class ProductSearchCache {
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Cache<Key, Page<ProductDTO>> cache;
+    private DistributionSummary fanOut;
+    private final AtomicLong generation = new AtomicLong();
+
+    @PostConstruct
+    @SuppressWarnings("unchecked")
+    void init() {
+        cache = (Cache<Key, Page<ProductDTO>>) cacheManager.getCache("productSearch").getNativeCache();
+        fanOut = DistributionSummary.builder("catalog.search.cache.invalidations")
+                .description("Search cache entries evicted per product write")
+                .register(meterRegistry);
+        Gauge.builder("catalog.search.cache.hit.ratio", cache, c -> c.stats().hitRate())
+                .register(meterRegistry);
+    }
+
+    public Page<ProductDTO> get(String name, CategoryFilter categories, ProductFields fields, Pageable pageable,
+                                Supplier<Page<ProductDTO>> loader) {
+        if (pageable.isUnpaged() || CacheSupport.inWriteTransaction()) {
+            return loader.get();
+        }
+        Key key = new Key(name.toLowerCase(Locale.ROOT), categories, fields, pageable.getPageNumber(), pageable.getPageSize(), pageable.getSort());
+        Page<ProductDTO> page = cache.getIfPresent(key);
+        if (page != null) {
+            return page;
+        }
+        long start = generation.get();
+        page = loader.get();
+        cache.put(key, page);
+        // a write committed while loading may not be visible in this page
+        if (generation.get() != start) {
+            cache.invalidate(key);
+        }
+        return page;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        generation.incrementAndGet();
+        int evicted = 0;
+        for (Key key : cache.asMap().keySet()) {
+            if (affects(key, event) && cache.asMap().remove(key) != null) {
+                evicted++;
+            }
+        }
+        fanOut.record(evicted);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductsInserted(ProductsInsertedEvent event) {
+        // a batch tends to touch most filters; dropping every page beats matching each key against each product
+        generation.incrementAndGet();
+        fanOut.record(cache.estimatedSize());
+        cache.invalidateAll();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        if (event.getProductIds().isEmpty()) {
+            return;
+        }
+        // any cached page may list a product of the category
+        generation.incrementAndGet();
+        fanOut.record(cache.estimatedSize());
+        cache.invalidateAll();
+    }
+
+    private static boolean affects(Key key, ProductChangedEvent event) {
+        if (!event.isPreviousKnown()) {
+            return true;
+        }
+        return matches(key, event.getName(), event.getCategoryIds())
+                || matches(key, event.getPreviousName(), event.getPreviousCategoryIds());
+    }
+
+    private static boolean matches(Key key, String name, Set<Long> categoryIds) {
+        if (name == null || !key.categories().matches(categoryIds)) {
+            return false;
+        }
+        if (key.name().contains("%") || key.name().contains("_")) {
+            return true;
+        }
+        return name.toLowerCase(Locale.ROOT).contains(key.name());
+    }
+
+    private record Key(String name, CategoryFilter categories, ProductFields fields, int page, int size, Sort sort) {
+    }
+}
@@ -0,0 +1,273 @@
+package com.taohansen.dscatalog.services.search;
+
+import com.taohansen.dscatalog.projections.ProductCategoryProjection;
+import com.taohansen.dscatalog.projections.ProductProjection;
+import com.taohansen.dscatalog.repositories.ProductRepository;
+import com.taohansen.dscatalog.services.events.ProductChangedEvent;
+import com.taohansen.dscatalog.services.events.ProductsInsertedEvent;
+import org.roaringbitmap.FastAggregation;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.text.Collator;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory trigram index over product names, mirroring the name and category filter that listings run through
+ * {@link com.taohansen.dscatalog.repositories.ProductViewRepository#searchPage}.
+ * Sorting by name is served only when catalog.search.index.collation names the order the database sorts names in:
+ * "binary" for code unit order, as in H2 and the PostgreSQL C collation, or a language tag for a locale collation.
+ */
+@Component
+public class ProductSearchIndex {
+
+    private static final int GRAM = 3;
+    @Value("${catalog.search.index.enabled}")
+    private boolean enabled;
+
+    @Value("${catalog.search.index.collation}")
+    private String collation;
+
+    @Autowired
+    private ProductRepository repository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, IndexedProduct> products = new HashMap<>();
+    private final Map<String, RoaringBitmap> grams = new HashMap<>();
+    private Comparator<String> nameOrder;
+    private volatile boolean ready;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        nameOrder = nameOrder(collation);
+        lock.writeLock().lock();
+        try {
+            products.clear();
+            grams.clear();
+            Map<Long, IndexedProduct> loaded = new HashMap<>();
+            for (ProductCategoryProjection row : repository.searchProductCategories()) {
+                IndexedProduct product = loaded.computeIfAbsent(row.getId(), id -> new IndexedProduct(id, row.getName()));
+                if (row.getCategoryId() != null) {
+                    product.categoryIds.add(row.getCategoryId());
+                }
+            }
+            loaded.values().forEach(this::add);
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (!ready) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            remove(event.getId());
+            if (!event.isDeleted()) {
+                IndexedProduct product = new IndexedProduct(event.getId(), event.getName());
+                product.categoryIds.addAll(event.getCategoryIds());
+                add(product);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductsInserted(ProductsInsertedEvent event) {
+        if (!ready) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            for (ProductChangedEvent product : event.getProducts()) {
+                IndexedProduct indexed = new IndexedProduct(product.getId(), product.getName());
+                indexed.categoryIds.addAll(product.getCategoryIds());
+                add(indexed);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean supports(String name, Pageable pageable) {
+        // an empty name matches every product, which the database lists more cheaply than the index
+        if (!ready || name == null || name.isEmpty() || name.contains("%") || name.contains("_")) {
+            return false;
+        }
+        return pageable.getSort().stream().allMatch(order -> "id".equals(order.getProperty())
+                || "name".equals(order.getProperty()) && nameOrder != null);
+    }
+
+    public Page<ProductProjection> search(String name, RoaringBitmap productIds, Pageable pageable) {
+        return search(name, productIds, CategoryFilter.EMPTY, pageable);
+    }
+
+    /**
+     * Searches the products among productIds or, when it is null, among those that match the category filter.
+     */
+    public Page<ProductProjection> search(String name, RoaringBitmap productIds, CategoryFilter categories, Pageable pageable) {
+        String term = name.toLowerCase(Locale.ROOT);
+        List<IndexedProduct> result = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (IndexedProduct product : candidates(term)) {
+                if (product.lowerName.contains(term) && matchesCategories(product, productIds, categories)) {
+                    result.add(product);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        result.sort(comparator(pageable.getSort(), nameOrder));
+
+        if (pageable.isUnpaged()) {
+            return new PageImpl<>(new ArrayList<>(result), pageable, result.size());
+        }
+        int from = (int) Math.min(pageable.getOffset(), result.size());
+        int to = Math.min(from + pageable.getPageSize(), result.size());
+        return new PageImpl<>(new ArrayList<>(result.subList(from, to)), pageable, result.size());
+    }
+
+    public RoaringBitmap matching(String name) {
+        String term = name.toLowerCase(Locale.ROOT);
+        RoaringBitmap result = new RoaringBitmap();
+        lock.readLock().lock();
+        try {
+            for (IndexedProduct product : candidates(term)) {
+                if (product.lowerName.contains(term)) {
+                    result.add(Math.toIntExact(product.id));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return result;
+    }
+
+    private Collection<IndexedProduct> candidates(String term) {
+        if (term.length() < GRAM) {
+            return products.values();
+        }
+        List<RoaringBitmap> postings = new ArrayList<>();
+        for (String gram : grams(term)) {
+            RoaringBitmap posting = grams.get(gram);
+            if (posting == null) {
+                return List.of();
+            }
+            postings.add(posting);
+        }
+
+        List<IndexedProduct> result = new ArrayList<>();
+        FastAggregation.and(postings.toArray(RoaringBitmap[]::new)).forEach((int id) -> result.add(products.get((long) id)));
+        return result;
+    }
+
+    private void add(IndexedProduct product) {
+        products.put(product.id, product);
+        int id = Math.toIntExact(product.id);
+        for (String gram : grams(product.lowerName)) {
+            grams.computeIfAbsent(gram, key -> new RoaringBitmap()).add(id);
+        }
+    }
+
+    private void remove(Long id) {
+        IndexedProduct old = products.remove(id);
+        if (old == null) {
+            return;
+        }
+        for (String gram : grams(old.lowerName)) {
+            RoaringBitmap posting = grams.get(gram);
+            if (posting != null) {
+                posting.remove(Math.toIntExact(id));
+                if (posting.isEmpty()) {
+                    grams.remove(gram);
+                }
+            }
+        }
+    }
+
+    private static Set<String> grams(String text) {
+        Set<String> result = new HashSet<>();
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            result.add(text.substring(i, i + GRAM));
+        }
+        return result;
+    }
+
+    private static boolean matchesCategories(IndexedProduct product, RoaringBitmap productIds, CategoryFilter categories) {
+        if (product.categoryIds.isEmpty()) {
+            return false;
+        }
+        if (productIds != null) {
+            return productIds.contains(Math.toIntExact(product.id));
+        }
+        return categories.isEmpty() || categories.matches(product.categoryIds);
+    }
+
+    private static Comparator<String> nameOrder(String collation) {
+        if (collation == null || collation.isBlank()) {
+            return null;
+        }
+        if ("binary".equalsIgnoreCase(collation)) {
+            return Comparator.naturalOrder();
+        }
+        Collator collator = Collator.getInstance(Locale.forLanguageTag(collation));
+        return collator::compare;
+    }
+
+    private static Comparator<IndexedProduct> comparator(Sort sort, Comparator<String> nameOrder) {
+        Comparator<IndexedProduct> result = null;
+        for (Sort.Order order : sort) {
+            Comparator<IndexedProduct> next = "name".equals(order.getProperty())
+                    ? Comparator.comparing(p -> p.name, Comparator.nullsLast(nameOrder))
+                    : Comparator.comparing(p -> p.id);
+            if (order.isDescending()) {
+                next = next.reversed();
+            }
+            result = result == null ? next : result.thenComparing(next);
+        }
+        Comparator<IndexedProduct> byId = Comparator.comparing(p -> p.id);
+        return result == null ? byId : result.thenComparing(byId);
+    }
+
+    private static class IndexedProduct implements ProductProjection {
+        private final Long id;
+        private final String name;
+        private final String lowerName;
+        private final Set<Long> categoryIds = new HashSet<>();
+
+        IndexedProduct(Long id, String name) {
+            this.id = id;
+            this.name = name;
+            this.lowerName = name == null ? "" : name.toLowerCase(Locale.ROOT);
+        }
+
+        @Override
+        public Long getId() {
+            return id;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.taohansen.dscatalog.services.snapshot;
+
+import com.taohansen.dscatalog.dto.CategoryDTO;
+import com.taohansen.dscatalog.services.version.ResourceVersion;
+
+import java.util.List;
+
+/**
+ * Every category at one point in time, with its JSON form and validators. Never modified once built: the DTO list
+ * is unmodifiable and callers must not write to the DTOs or the bytes.
+ */
+public record CategorySnapshot(List<CategoryDTO> categories, byte[] json, ResourceVersion version) {
+}
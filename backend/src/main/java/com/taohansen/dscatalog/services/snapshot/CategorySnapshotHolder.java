@@ -0,0 +1,83 @@
+package com.taohansen.dscatalog.services.snapshot;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.taohansen.dscatalog.dto.CategoryDTO;
+import com.taohansen.dscatalog.repositories.CategoryRepository;
+import com.taohansen.dscatalog.services.events.CategoryChangedEvent;
+import com.taohansen.dscatalog.services.version.ResourceVersion;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Holds the current {@link CategorySnapshot}. It is rebuilt from the database at startup and after every category
+ * write commits, then swapped in whole, so readers never see a partial list.
+ */
+@Component
+public class CategorySnapshotHolder {
+
+    @Autowired
+    private CategoryRepository repository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+    private volatile CategorySnapshot snapshot;
+
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        // after commit the writer's transaction is still bound to the thread
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        transactionTemplate.setReadOnly(true);
+    }
+
+    public CategorySnapshot get() {
+        CategorySnapshot current = snapshot;
+        return current != null ? current : refresh();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        refresh();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        refresh();
+    }
+
+    /**
+     * Serialized so that the snapshot loaded last, which sees every commit before it, is the one kept.
+     */
+    public synchronized CategorySnapshot refresh() {
+        List<CategoryDTO> categories = transactionTemplate.execute(status ->
+                repository.findAll().stream().map(CategoryDTO::new).toList());
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(categories);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize categories", e);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(json);
+        ResourceVersion version = new ResourceVersion("categories-" + Long.toHexString(crc.getValue()), Instant.now());
+        snapshot = new CategorySnapshot(categories, json, version);
+        return snapshot;
+    }
+}
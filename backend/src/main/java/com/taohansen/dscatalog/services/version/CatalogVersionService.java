@@ -0,0 +1,132 @@
+package com.taohansen.dscatalog.services.version;
+
+import com.taohansen.dscatalog.entities.CatalogVersion;
+import com.taohansen.dscatalog.repositories.CatalogVersionRepository;
+import com.taohansen.dscatalog.services.events.CategoryChangedEvent;
+import com.taohansen.dscatalog.services.events.ProductChangedEvent;
+import com.taohansen.dscatalog.services.events.ProductsInsertedEvent;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Catalog-wide counter used as the entity tag of list responses. Product and category change events bump the
+ * tb_catalog_version row once per writing transaction, after it commits, in a short transaction of its own; the
+ * current value is held in memory and re-read from the row on a fixed delay to pick up writes made by other nodes.
+ */
+@Service
+public class CatalogVersionService {
+
+    @Autowired
+    private CatalogVersionRepository repository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private TaskScheduler taskScheduler;
+
+    @Value("${catalog.version.refresh-interval}")
+    private Duration refreshInterval;
+
+    private TransactionTemplate transactionTemplate;
+    private final AtomicReference<CatalogVersion> current = new AtomicReference<>();
+
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        // runs after the writer's transaction completed, while it is still bound to the thread
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        taskScheduler.scheduleWithFixedDelay(this::refresh, refreshInterval);
+    }
+
+    public ResourceVersion current() {
+        CatalogVersion version = current.get();
+        if (version == null) {
+            version = refresh();
+        }
+        return new ResourceVersion("catalog-" + version.getVersion(), version.getUpdatedAt());
+    }
+
+    @EventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        incrementAfterCommit();
+    }
+
+    @EventListener
+    public void onProductsInserted(ProductsInsertedEvent event) {
+        incrementAfterCommit();
+    }
+
+    @EventListener
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        incrementAfterCommit();
+    }
+
+    /**
+     * Bumps the version once the current transaction commits, however many changes it published, or right away
+     * outside a transaction. The bump runs after completion so that caches evicted on commit are already clear
+     * when clients see the new tag.
+     */
+    public void incrementAfterCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            increment();
+            return;
+        }
+        boolean registered = TransactionSynchronizationManager.getSynchronizations().stream()
+                .anyMatch(synchronization -> synchronization instanceof IncrementOnCommit);
+        if (!registered) {
+            TransactionSynchronizationManager.registerSynchronization(new IncrementOnCommit());
+        }
+    }
+
+    public CatalogVersion increment() {
+        CatalogVersion version = transactionTemplate.execute(status -> {
+            Instant now = Instant.now();
+            if (repository.increment(CatalogVersion.ID, now) == 0) {
+                return repository.save(new CatalogVersion(CatalogVersion.ID, 1L, now));
+            }
+            return repository.findCurrent(CatalogVersion.ID).orElseThrow();
+        });
+        return advance(version);
+    }
+
+    public CatalogVersion refresh() {
+        CatalogVersion version = transactionTemplate.execute(status -> repository.findCurrent(CatalogVersion.ID)
+                .orElse(new CatalogVersion(CatalogVersion.ID, 0L, null)));
+        return advance(version);
+    }
+
+    // a refresh that read the row before a later bump must not move the version back
+    private CatalogVersion advance(CatalogVersion version) {
+        return current.accumulateAndGet(version, (previous, next) ->
+                previous == null || next.getVersion() > previous.getVersion() ? next : previous);
+    }
+
+    private class IncrementOnCommit implements TransactionSynchronization {
+
+        @Override
+        public void afterCompletion(int status) {
+            if (status == STATUS_COMMITTED) {
+                increment();
+            }
+        }
+    }
+}
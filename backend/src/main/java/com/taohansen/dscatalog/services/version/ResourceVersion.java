@@ -0,0 +1,29 @@
+package com.taohansen.dscatalog.services.version;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Validators of a representation: a strong entity tag and, when known, the last modification time.
+ */
+public record ResourceVersion(String tag, Instant lastModified) {
+
+    public static ResourceVersion of(String prefix, Instant... timestamps) {
+        Instant latest = null;
+        for (Instant timestamp : timestamps) {
+            if (timestamp != null && (latest == null || timestamp.isAfter(latest))) {
+                latest = timestamp;
+            }
+        }
+        long micros = latest == null ? 0 : ChronoUnit.MICROS.between(Instant.EPOCH, latest);
+        return new ResourceVersion(prefix + "-" + micros, latest);
+    }
+
+    public String etag() {
+        return '"' + tag + '"';
+    }
+
+    public long lastModifiedMillis() {
+        return lastModified == null ? -1 : lastModified.toEpochMilli();
+    }
+}
@@ -0,0 +1,75 @@
+package com.taohansen.dscatalog.services.view;
+
+import com.taohansen.dscatalog.projections.TableStateProjection;
+import com.taohansen.dscatalog.repositories.ProductRepository;
+import com.taohansen.dscatalog.repositories.ProductViewRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Keeps {@code tb_product_view} in step with products and categories. Writers call it inside their own transaction,
+ * so the read model commits or rolls back together with the change.
+ */
+@Service
+public class ProductViewService {
+
+    @Autowired
+    private ProductViewRepository repository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    /**
+     * Rewrites the rows of the given products; products that no longer exist lose their row.
+     */
+    @Transactional
+    public void refresh(Collection<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return;
+        }
+        repository.deleteRows(productIds);
+        repository.insertRows(productIds);
+    }
+
+    /**
+     * Rewrites only the inlined categories of the products linked to the category, after a rename.
+     *
+     * @return ids of the products whose row changed
+     */
+    @Transactional
+    public List<Long> refreshCategory(Long categoryId) {
+        List<Long> productIds = repository.findProductIdsByCategory(categoryId);
+        if (!productIds.isEmpty()) {
+            repository.refreshCategories(productIds);
+        }
+        return productIds;
+    }
+
+    @Transactional
+    public void rebuild() {
+        repository.deleteAllRows();
+        repository.insertAllRows();
+    }
+
+    /**
+     * Rebuilds the view when it disagrees with the products on row count, highest id or latest update, which catches
+     * rows inserted, deleted or updated while the view was not maintained.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIfStale() {
+        TableStateProjection view = repository.findState();
+        TableStateProjection products = productRepository.findState();
+        if (!Objects.equals(view.getTotal(), products.getTotal())
+                || !Objects.equals(view.getMaxId(), products.getMaxId())
+                || !Objects.equals(view.getMaxUpdatedAt(), products.getMaxUpdatedAt())) {
+            rebuild();
+        }
+    }
+}
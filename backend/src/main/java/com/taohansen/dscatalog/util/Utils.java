@@ -1,13 +1,19 @@
 package com.taohansen.dscatalog.util;
 
+import com.taohansen.dscatalog.dto.CategoryDTO;
 import com.taohansen.dscatalog.projections.IdProjection;
 
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 
 public class Utils {
+    // Separators used by the aggregated "categories" column: id CHR(31) name, joined by CHR(30)
+    private static final char UNIT_SEPARATOR = 31;
+    private static final char RECORD_SEPARATOR = 30;
+
     public static <ID> List<? extends IdProjection<ID>> replace(List<? extends IdProjection<ID>> ordered,
                                                                 List<? extends IdProjection<ID>> unordered) {
         Map<ID, IdProjection<ID>> map = new HashMap<>();
@@ -21,4 +27,49 @@ public class Utils {
         }
         return result;
     }
+
+    public static List<CategoryDTO> parseCategories(String aggregated) {
+        List<CategoryDTO> result = new ArrayList<>();
+        if (aggregated == null || aggregated.isEmpty()) {
+            return result;
+        }
+        for (String category : aggregated.split(String.valueOf(RECORD_SEPARATOR))) {
+            int separator = category.indexOf(UNIT_SEPARATOR);
+            result.add(new CategoryDTO(Long.parseLong(category.substring(0, separator)), category.substring(separator + 1)));
+        }
+        return result;
+    }
+
+    /**
+     * Whether an Accept-Encoding header admits gzip: an explicit gzip entry decides by its q-value, otherwise a
+     * wildcard does, so "gzip;q=0" refuses it. A q-value that does not parse counts as 0.
+     */
+    public static boolean acceptsGzip(String acceptEncoding) {
+        Double gzip = null;
+        Double wildcard = null;
+        for (String entry : acceptEncoding.split(",")) {
+            String[] parts = entry.split(";");
+            String coding = parts[0].strip().toLowerCase(Locale.ROOT);
+            double q = 1.0;
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].strip().toLowerCase(Locale.ROOT);
+                if (parameter.startsWith("q=")) {
+                    try {
+                        q = Double.parseDouble(parameter.substring(2).strip());
+                    } catch (NumberFormatException e) {
+                        q = 0.0;
+                    }
+                }
+            }
+            if (coding.equals("gzip") || coding.equals("x-gzip")) {
+                gzip = gzip == null ? q : Math.max(gzip, q);
+            } else if (coding.equals("*")) {
+                wildcard = q;
+            }
+        }
+        if (gzip != null) {
+            return gzip > 0;
+        }
+        return wildcard != null && wildcard > 0;
+    }
 }
@@ -0,0 +1,36 @@
+package com.taohansen.dscatalog.benchmarks;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.util.Collection;
+
+/**
+ * Runs {@link PasswordEncoderBenchmark} with JMH. Run with {@code mvn test -Dbenchmark=true
+ * -Dtest=PasswordEncoderBenchmarkTests}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class PasswordEncoderBenchmarkTests {
+
+    @Test
+    public void compareEncoders() throws Exception {
+        Options options = new OptionsBuilder()
+                .include(PasswordEncoderBenchmark.class.getName())
+                .forks(1)
+                .warmupIterations(2)
+                .warmupTime(TimeValue.seconds(2))
+                .measurementIterations(3)
+                .measurementTime(TimeValue.seconds(3))
+                .build();
+
+        Collection<RunResult> results = new Runner(options).run();
+
+        Assertions.assertEquals(4, results.size());
+    }
+}
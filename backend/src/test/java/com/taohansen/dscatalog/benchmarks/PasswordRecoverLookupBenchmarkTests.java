@@ -0,0 +1,102 @@
+package com.taohansen.dscatalog.benchmarks;
+
+import com.taohansen.dscatalog.repositories.PasswordRecoverRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Time to consume a recovery token, the conditional update the reset path runs, with a small and with a million-row
+ * {@code tb_password_recover}: the unique index on the token hash keeps it flat. Run with {@code mvn test -Dbenchmark=true}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:recoverbenchmarkdb",
+        "spring.jpa.show-sql=false"
+})
+public class PasswordRecoverLookupBenchmarkTests {
+
+    private static final int SMALL = 1_000;
+    private static final int LARGE = Integer.getInteger("benchmark.tokens", 1_000_000);
+    private static final int WARMUP = 2_000;
+    private static final int LOOKUPS = 20_000;
+
+    @Autowired
+    private PasswordRecoverRepository repository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    public void lookupTimeShouldNotGrowWithTableSize() {
+        seed(0, SMALL);
+        double small = measure(SMALL);
+        seed(SMALL, LARGE);
+        double large = measure(LARGE);
+
+        System.out.printf("token consume %,9d rows: %6.1f us | %,9d rows: %6.1f us%n", SMALL, small, LARGE, large);
+        String plan = jdbcTemplate.queryForObject("EXPLAIN UPDATE tb_password_recover SET expiration = ? WHERE token_hash = ? AND expiration > ?",
+                String.class, Timestamp.from(Instant.EPOCH), hash("token-1"), Timestamp.from(Instant.now()));
+        Assertions.assertTrue(plan.toLowerCase().contains("idx_password_recover_token_hash"), plan);
+        Assertions.assertTrue(large < small * 3, "lookup grew from " + small + " to " + large + " us");
+    }
+
+    private double measure(int rows) {
+        for (int i = 0; i < WARMUP; i++) {
+            lookup(rows);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < LOOKUPS; i++) {
+            lookup(rows);
+        }
+        return (System.nanoTime() - start) / 1_000.0 / LOOKUPS;
+    }
+
+    private void lookup(int rows) {
+        String token = "token-" + ThreadLocalRandom.current().nextInt(rows);
+        // rolled back, so every token stays valid for the next draw
+        int consumed = transactionTemplate.execute(status -> {
+            status.setRollbackOnly();
+            return repository.consumeToken(hash(token), Instant.now(), Instant.EPOCH);
+        });
+        Assertions.assertEquals(1, consumed);
+    }
+
+    private void seed(int from, int to) {
+        Timestamp expiration = Timestamp.from(Instant.now().plus(1, ChronoUnit.DAYS));
+        List<Object[]> batch = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            batch.add(new Object[]{hash("token-" + i), "maria@gmail.com", expiration});
+            if (batch.size() == 10_000 || i == to - 1) {
+                jdbcTemplate.batchUpdate("INSERT INTO tb_password_recover (token_hash, email, expiration) VALUES (?, ?, ?)", batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private static String hash(String token) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.taohansen.dscatalog.benchmarks;
+
+import org.apache.tomcat.util.threads.ThreadPoolExecutor;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.concurrent.Executor;
+
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:platformloaddb",
+        "spring.jpa.show-sql=false",
+        "catalog.threads.virtual=false"
+})
+public class PlatformThreadsLoadBenchmarkTests extends ThreadModeLoadBenchmark {
+
+    @Override
+    protected String mode() {
+        return "platform";
+    }
+
+    @Override
+    protected void assertRequestExecutor(Executor executor) {
+        Assertions.assertInstanceOf(ThreadPoolExecutor.class, executor);
+    }
+}
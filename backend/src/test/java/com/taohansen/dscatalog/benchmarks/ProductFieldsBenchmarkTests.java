@@ -0,0 +1,131 @@
+package com.taohansen.dscatalog.benchmarks;
+
+import com.taohansen.dscatalog.dto.ProductDTO;
+import com.taohansen.dscatalog.repositories.ProductRepository;
+import com.taohansen.dscatalog.services.search.CategoryFilter;
+import com.taohansen.dscatalog.services.search.ProductFields;
+import com.taohansen.dscatalog.services.view.ProductViewService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Compares full product listings with sparse fieldsets: response bytes and time spent in the listing query.
+ * Run with {@code mvn test -Dbenchmark=true}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:fieldsbenchmarkdb",
+        "spring.jpa.show-sql=false"
+})
+@AutoConfigureMockMvc
+public class ProductFieldsBenchmarkTests {
+
+    private static final int PRODUCTS = Integer.getInteger("benchmark.products", 10_000);
+    private static final int PAGE_SIZE = 100;
+    private static final int WARMUP = 5;
+    private static final int ITERATIONS = 20;
+    private static final String LIST_FIELDS = "id,name,price,imgUrl";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ProductRepository repository;
+
+    @Autowired
+    private ProductViewService productViewService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        if (repository.count() < PRODUCTS) {
+            seed();
+            productViewService.rebuild();
+        }
+    }
+
+    @Test
+    public void sparseFieldsShouldShrinkResponseAndQuery() throws Exception {
+        int fullBytes = responseBytes("/products?sort=name&size=" + PAGE_SIZE);
+        int sparseBytes = responseBytes("/products?sort=name&size=" + PAGE_SIZE + "&fields=" + LIST_FIELDS);
+        System.out.printf("response bytes, %d products  full: %8d | fields=%s: %8d (%.1f%%)%n",
+                PAGE_SIZE, fullBytes, LIST_FIELDS, sparseBytes, 100.0 * sparseBytes / fullBytes);
+        Assertions.assertTrue(sparseBytes < fullBytes);
+
+        ProductFields fields = ProductFields.parse(LIST_FIELDS);
+        for (int page : new int[]{0, 50}) {
+            PageRequest pageRequest = PageRequest.of(page, PAGE_SIZE, Sort.by("name"));
+            // same table and query shape on both sides; only the selected columns differ
+            Supplier<List<ProductDTO>> full = () -> transactionTemplate.execute(status ->
+                    repository.searchProductFields(ProductFields.ALL, null, CategoryFilter.EMPTY, "", pageRequest).getContent());
+            Supplier<List<ProductDTO>> sparse = () -> transactionTemplate.execute(status ->
+                    repository.searchProductFields(fields, null, CategoryFilter.EMPTY, "", pageRequest).getContent());
+
+            Assertions.assertEquals(full.get().stream().map(ProductDTO::getId).toList(),
+                    sparse.get().stream().map(ProductDTO::getId).toList());
+            System.out.printf("query time, page %-3d         full: %6.2f ms | fields=%s: %6.2f ms%n",
+                    page, measure(full), LIST_FIELDS, measure(sparse));
+        }
+    }
+
+    private int responseBytes(String url) throws Exception {
+        return mockMvc.perform(get(url).accept(MediaType.APPLICATION_JSON))
+                .andReturn().getResponse().getContentAsByteArray().length;
+    }
+
+    private double measure(Supplier<?> path) {
+        for (int i = 0; i < WARMUP; i++) {
+            path.get();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            path.get();
+        }
+        return (System.nanoTime() - start) / 1_000_000.0 / ITERATIONS;
+    }
+
+    private void seed() {
+        List<Object[]> products = new ArrayList<>();
+        List<Object[]> links = new ArrayList<>();
+        for (long id = 1000; id < 1000 + PRODUCTS; id++) {
+            products.add(new Object[]{id, "Product " + id, "Lorem ipsum dolor sit amet ".repeat(40), 10.0 + id % 5000,
+                    "https://img.com/" + id + ".png", Timestamp.from(Instant.now())});
+            links.add(new Object[]{id, 1L + id % 3});
+            if (products.size() == 5_000) {
+                flush(products, links);
+            }
+        }
+        flush(products, links);
+    }
+
+    private void flush(List<Object[]> products, List<Object[]> links) {
+        jdbcTemplate.batchUpdate("INSERT INTO tb_product (id, name, description, price, img_url, date) VALUES (?, ?, ?, ?, ?, ?)", products);
+        jdbcTemplate.batchUpdate("INSERT INTO tb_product_category (product_id, category_id) VALUES (?, ?)", links);
+        products.clear();
+        links.clear();
+    }
+}
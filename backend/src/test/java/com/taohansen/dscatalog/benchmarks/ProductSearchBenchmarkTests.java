@@ -0,0 +1,166 @@
+package com.taohansen.dscatalog.benchmarks;
+
+import com.taohansen.dscatalog.dto.ProductDTO;
+import com.taohansen.dscatalog.entities.Product;
+import com.taohansen.dscatalog.projections.ProductProjection;
+import com.taohansen.dscatalog.repositories.ProductRepository;
+import com.taohansen.dscatalog.services.ProductService;
+import com.taohansen.dscatalog.services.search.CategoryBitmapIndex;
+import com.taohansen.dscatalog.services.search.CategoryFilter;
+import com.taohansen.dscatalog.services.view.ProductViewService;
+import com.taohansen.dscatalog.util.Utils;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+
+/**
+ * Compares the legacy three-query listing (page + count, category fetch, re-sort) with the
+ * single-statement search on a seeded H2 catalog. Run with {@code mvn test -Dbenchmark=true}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:benchmarkdb",
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+public class ProductSearchBenchmarkTests {
+
+    private static final int PRODUCTS = Integer.getInteger("benchmark.products", 10_000);
+    private static final int WARMUP = 5;
+    private static final int ITERATIONS = 20;
+    private static final String[] WORDS = {"Gamer", "Smart", "Book", "Phone", "Ultra", "Mini", "Pro", "Max", "Air", "Home"};
+
+    @Autowired
+    private ProductService service;
+
+    @Autowired
+    private ProductRepository repository;
+
+    @Autowired
+    private ProductViewService productViewService;
+
+    @Autowired
+    private CategoryBitmapIndex categoryIndex;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        if (repository.count() < PRODUCTS) {
+            seed();
+            productViewService.rebuild();
+            categoryIndex.rebuild();
+        }
+    }
+
+    @Test
+    public void singleStatementSearchShouldBeatLegacyPath() {
+        run("first page, no filter", "", "0", PageRequest.of(0, 12, Sort.by("name")));
+        run("deep page, no filter", "", "0", PageRequest.of(500, 12, Sort.by("name")));
+        run("name filter", "gamer pro", "0", PageRequest.of(0, 12, Sort.by("name")));
+        run("category filter", "", "2,3", PageRequest.of(10, 12, Sort.by("name")));
+    }
+
+    private void run(String scenario, String name, String categoryId, PageRequest pageRequest) {
+        List<Long> categoryIds = "0".equals(categoryId) ? List.of()
+                : Arrays.stream(categoryId.split(",")).map(Long::parseLong).toList();
+
+        Supplier<Page<ProductDTO>> legacy = () -> transactionTemplate.execute(status -> {
+            Page<ProductProjection> page = repository.searchProducts(categoryIds, name, pageRequest);
+            List<Long> productIds = page.map(ProductProjection::getId).toList();
+            List<Product> entities = repository.searchProductsWithCategories(productIds);
+            entities = (List<Product>) Utils.replace(page.getContent(), entities);
+            List<ProductDTO> dtos = entities.stream().map(p -> new ProductDTO(p, p.getCategories())).toList();
+            return new PageImpl<>(dtos, page.getPageable(), page.getTotalElements());
+        });
+        Supplier<Page<ProductDTO>> single = () -> service.findAllPaged(name, CategoryFilter.parse(categoryId, "", ""), pageRequest);
+
+        Page<ProductDTO> expected = legacy.get();
+        Page<ProductDTO> actual = single.get();
+        Assertions.assertEquals(expected.getTotalElements(), actual.getTotalElements());
+        Assertions.assertEquals(expected.map(ProductDTO::getId).toList(), actual.map(ProductDTO::getId).toList());
+
+        Result legacyResult = measure(legacy);
+        Result singleResult = measure(single);
+        System.out.printf("%-24s legacy: %6.2f ms, %d statements | single: %6.2f ms, %d statements%n",
+                scenario, legacyResult.millis, legacyResult.statements, singleResult.millis, singleResult.statements);
+    }
+
+    private Result measure(Supplier<Page<ProductDTO>> path) {
+        for (int i = 0; i < WARMUP; i++) {
+            path.get();
+        }
+        statistics.clear();
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            path.get();
+        }
+        double millis = (System.nanoTime() - start) / 1_000_000.0 / ITERATIONS;
+        return new Result(millis, statistics.getPrepareStatementCount() / ITERATIONS);
+    }
+
+    private void seed() {
+        Random random = new Random(42);
+        List<Object[]> categories = new ArrayList<>();
+        for (long id = 100; id < 120; id++) {
+            categories.add(new Object[]{id, "Category " + id, Timestamp.from(Instant.now())});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO tb_category (id, name, created_at) VALUES (?, ?, ?)", categories);
+
+        List<Object[]> products = new ArrayList<>();
+        List<Object[]> links = new ArrayList<>();
+        for (long id = 1000; id < 1000 + PRODUCTS; id++) {
+            String name = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)] + " " + id;
+            products.add(new Object[]{id, name, "Lorem ipsum dolor sit amet ".repeat(20), 10.0 + random.nextInt(5000),
+                    "https://img.com/" + id + ".png", Timestamp.from(Instant.now())});
+            links.add(new Object[]{id, random.nextBoolean() ? 2L + random.nextInt(2) : 100L + random.nextInt(20)});
+            if (random.nextBoolean()) {
+                links.add(new Object[]{id, 100L + random.nextInt(20)});
+            }
+            if (products.size() == 5_000) {
+                flush(products, links);
+            }
+        }
+        flush(products, links);
+    }
+
+    private void flush(List<Object[]> products, List<Object[]> links) {
+        jdbcTemplate.batchUpdate("INSERT INTO tb_product (id, name, description, price, img_url, date) VALUES (?, ?, ?, ?, ?, ?)", products);
+        jdbcTemplate.batchUpdate("MERGE INTO tb_product_category (product_id, category_id) VALUES (?, ?)", links);
+        products.clear();
+        links.clear();
+    }
+
+    private record Result(double millis, long statements) {
+    }
+}
@@ -0,0 +1,184 @@
+package com.taohansen.dscatalog.benchmarks;
+
+import com.taohansen.dscatalog.repositories.ProductRepository;
+import com.taohansen.dscatalog.services.search.CategoryBitmapIndex;
+import com.taohansen.dscatalog.services.view.ProductViewService;
+import org.apache.catalina.connector.Connector;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.boot.web.embedded.tomcat.TomcatWebServer;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Drives {@code /products} and {@code /oauth2/token} over real HTTP with many concurrent clients. Subclasses start
+ * the server in one execution mode each, so the printed lines can be compared side by side.
+ * Run with {@code mvn test -Dbenchmark=true -Dtest='*ThreadsLoadBenchmarkTests'}.
+ */
+abstract class ThreadModeLoadBenchmark {
+
+    private static final int PRODUCTS = Integer.getInteger("benchmark.products", 10_000);
+    private static final int CLIENTS = Integer.getInteger("benchmark.clients", 400);
+    private static final int REQUESTS_PER_CLIENT = Integer.getInteger("benchmark.requests", 10);
+    private static final String LETTERS = "abcdefghijklmnopqrstuvwxyz";
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private ServletWebServerApplicationContext context;
+
+    @Autowired
+    private ProductRepository repository;
+
+    @Autowired
+    private ProductViewService productViewService;
+
+    @Autowired
+    private CategoryBitmapIndex categoryIndex;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+
+    protected abstract String mode();
+
+    protected abstract void assertRequestExecutor(Executor executor);
+
+    @BeforeEach
+    void setUp() {
+        if (repository.count() < PRODUCTS) {
+            seed();
+            productViewService.rebuild();
+            categoryIndex.rebuild();
+        }
+    }
+
+    @Test
+    public void loadShouldCompleteOnConfiguredThreads() throws Exception {
+        Connector connector = ((TomcatWebServer) context.getWebServer()).getTomcat().getConnector();
+        assertRequestExecutor(connector.getProtocolHandler().getExecutor());
+
+        run("GET /products", CLIENTS, REQUESTS_PER_CLIENT, () -> HttpRequest.newBuilder(uri("/products?size=12&sort=name"
+                        + "&name=" + randomLetters(2) + "&page=" + ThreadLocalRandom.current().nextInt(3)))
+                .GET().build());
+        String basic = Base64.getEncoder().encodeToString("myclientid:myclientsecret".getBytes(StandardCharsets.UTF_8));
+        run("POST /oauth2/token", CLIENTS / 4, 2, () -> HttpRequest.newBuilder(uri("/oauth2/token"))
+                .header("Authorization", "Basic " + basic)
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString("grant_type=password&username=maria@gmail.com&password=123456"))
+                .build());
+    }
+
+    private void run(String scenario, int clients, int requestsPerClient, Supplier<HttpRequest> request) throws Exception {
+        List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger failures = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(clients);
+        long start = System.nanoTime();
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < clients; i++) {
+                futures.add(executor.submit(() -> {
+                    for (int j = 0; j < requestsPerClient; j++) {
+                        long sent = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = client.send(request.get(), HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() != 200) {
+                                failures.incrementAndGet();
+                            }
+                        } catch (Exception e) {
+                            failures.incrementAndGet();
+                        }
+                        latencies.add(System.nanoTime() - sent);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        List<Long> sorted = new ArrayList<>(latencies);
+        Collections.sort(sorted);
+        System.out.printf("%-8s %-20s %4d clients: %7.1f req/s | p50 %7.1f ms | p99 %7.1f ms | max %7.1f ms | %d failed%n",
+                mode(), scenario, clients, sorted.size() / seconds, percentile(sorted, 0.50), percentile(sorted, 0.99),
+                percentile(sorted, 1.0), failures.get());
+        Assertions.assertEquals(clients * requestsPerClient, sorted.size());
+    }
+
+    private static double percentile(List<Long> sorted, double p) {
+        int index = Math.min(sorted.size() - 1, (int) Math.ceil(p * sorted.size()) - 1);
+        return sorted.get(Math.max(index, 0)) / 1_000_000.0;
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    private static String randomLetters(int length) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            sb.append(LETTERS.charAt(ThreadLocalRandom.current().nextInt(LETTERS.length())));
+        }
+        return sb.toString();
+    }
+
+    private void seed() {
+        Random random = new Random(42);
+        List<Object[]> products = new ArrayList<>();
+        List<Object[]> links = new ArrayList<>();
+        for (long id = 1000; id < 1000 + PRODUCTS; id++) {
+            products.add(new Object[]{id, randomName(random) + " " + id, "Lorem ipsum dolor sit amet ".repeat(20),
+                    10.0 + random.nextInt(5000), "https://img.com/" + id + ".png", Timestamp.from(Instant.now())});
+            links.add(new Object[]{id, 1L + random.nextInt(3)});
+            if (products.size() == 5_000) {
+                flush(products, links);
+            }
+        }
+        flush(products, links);
+    }
+
+    private static String randomName(Random random) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 12; i++) {
+            sb.append(LETTERS.charAt(random.nextInt(LETTERS.length())));
+        }
+        return sb.toString();
+    }
+
+    private void flush(List<Object[]> products, List<Object[]> links) {
+        jdbcTemplate.batchUpdate("INSERT INTO tb_product (id, name, description, price, img_url, date) VALUES (?, ?, ?, ?, ?, ?)", products);
+        jdbcTemplate.batchUpdate("INSERT INTO tb_product_category (product_id, category_id) VALUES (?, ?)", links);
+        products.clear();
+        links.clear();
+    }
+}
@@ -0,0 +1,29 @@
+package com.taohansen.dscatalog.benchmarks;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.condition.JRE;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.concurrent.Executor;
+
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@EnabledForJreRange(min = JRE.JAVA_21)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:virtualloaddb",
+        "spring.jpa.show-sql=false",
+        "catalog.threads.virtual=true"
+})
+public class VirtualThreadsLoadBenchmarkTests extends ThreadModeLoadBenchmark {
+
+    @Override
+    protected String mode() {
+        return "virtual";
+    }
+
+    @Override
+    protected void assertRequestExecutor(Executor executor) {
+        Assertions.assertEquals("ThreadPerTaskExecutor", executor.getClass().getSimpleName());
+    }
+}
@@ -0,0 +1,101 @@
+package com.taohansen.dscatalog.config;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.core.ClientAuthenticationMethod;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.security.oauth2.server.authorization.OAuth2Authorization;
+import org.springframework.security.oauth2.server.authorization.OAuth2TokenType;
+import org.springframework.security.oauth2.server.authorization.client.RegisteredClient;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Set;
+
+public class BoundedOAuth2AuthorizationServiceTests {
+
+    private static final RegisteredClient CLIENT = RegisteredClient.withId("client")
+            .clientId("client")
+            .clientAuthenticationMethod(ClientAuthenticationMethod.CLIENT_SECRET_BASIC)
+            .authorizationGrantType(AuthorizationGrantType.CLIENT_CREDENTIALS)
+            .build();
+
+    private BoundedOAuth2AuthorizationService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new BoundedOAuth2AuthorizationService(3, Duration.ofMinutes(5));
+    }
+
+    @Test
+    public void findByTokenShouldReturnAuthorizationOfToken() {
+        OAuth2Authorization authorization = authorization("a", "token-a", Duration.ofHours(1));
+        service.save(authorization);
+
+        Assertions.assertSame(authorization, service.findByToken("token-a", OAuth2TokenType.ACCESS_TOKEN));
+        Assertions.assertSame(authorization, service.findByToken("token-a", null));
+        Assertions.assertNull(service.findByToken("token-a", OAuth2TokenType.REFRESH_TOKEN));
+        Assertions.assertNull(service.findByToken("other", OAuth2TokenType.ACCESS_TOKEN));
+    }
+
+    @Test
+    public void saveShouldDropTokensReplacedInAuthorization() {
+        service.save(authorization("a", "old", Duration.ofHours(1)));
+        OAuth2Authorization renewed = authorization("a", "new", Duration.ofHours(1));
+
+        service.save(renewed);
+
+        Assertions.assertNull(service.findByToken("old", null));
+        Assertions.assertSame(renewed, service.findByToken("new", null));
+    }
+
+    @Test
+    public void removeShouldDropAuthorizationAndTokens() {
+        OAuth2Authorization authorization = authorization("a", "token-a", Duration.ofHours(1));
+        service.save(authorization);
+
+        service.remove(authorization);
+
+        Assertions.assertNull(service.findById("a"));
+        Assertions.assertNull(service.findByToken("token-a", null));
+    }
+
+    @Test
+    public void authorizationShouldExpireWithItsTokens() {
+        service.save(authorization("expired", "token-expired", Duration.ofSeconds(-1)));
+
+        Assertions.assertNull(service.findById("expired"));
+        Assertions.assertNull(service.findByToken("token-expired", null));
+    }
+
+    @Test
+    public void storeShouldEvictBeyondMaxSize() {
+        for (int i = 0; i < 10; i++) {
+            service.save(authorization("id-" + i, "token-" + i, Duration.ofHours(1)));
+        }
+        service.getCache().cleanUp();
+
+        Assertions.assertEquals(3, service.getCache().estimatedSize());
+        long found = 0;
+        for (int i = 0; i < 10; i++) {
+            if (service.findByToken("token-" + i, null) != null) {
+                found++;
+            }
+        }
+        Assertions.assertEquals(3, found);
+    }
+
+    private static OAuth2Authorization authorization(String id, String tokenValue, Duration timeToLive) {
+        Instant expiresAt = Instant.now().plus(timeToLive);
+        OAuth2AccessToken token = new OAuth2AccessToken(OAuth2AccessToken.TokenType.BEARER, tokenValue,
+                expiresAt.minus(Duration.ofHours(2)), expiresAt, Set.of("read"));
+        return OAuth2Authorization.withRegisteredClient(CLIENT)
+                .id(id)
+                .principalName("user")
+                .authorizationGrantType(AuthorizationGrantType.CLIENT_CREDENTIALS)
+                .accessToken(token)
+                .build();
+    }
+}
@@ -0,0 +1,86 @@
+package com.taohansen.dscatalog.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class BoundedPasswordEncoderTests {
+
+    private PasswordEncoder delegate;
+    private BoundedPasswordEncoder encoder;
+    private CountDownLatch release;
+
+    @BeforeEach
+    void setUp() {
+        delegate = Mockito.mock(PasswordEncoder.class);
+        release = new CountDownLatch(1);
+        encoder = new BoundedPasswordEncoder(delegate, 1, 1, Duration.ofSeconds(5));
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        encoder.shutdown();
+    }
+
+    @Test
+    public void shouldRunDelegateOnHashingThread() {
+        Mockito.when(delegate.matches("secret", "hash")).thenAnswer(invocation ->
+                Thread.currentThread().getName().startsWith("password-hashing-"));
+        Mockito.when(delegate.upgradeEncoding("hash")).thenReturn(true);
+
+        Assertions.assertTrue(encoder.matches("secret", "hash"));
+        Assertions.assertTrue(encoder.upgradeEncoding("hash"));
+    }
+
+    @Test
+    public void shouldRejectWhenQueueIsFull() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        Mockito.when(delegate.encode(Mockito.any())).thenAnswer(invocation -> {
+            started.countDown();
+            release.await();
+            return "hash";
+        });
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> encoder.encode("a"));
+        Assertions.assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> encoder.encode("b"));
+        while (encoder.getExecutor().getQueue().isEmpty()) {
+            Thread.onSpinWait();
+        }
+
+        Assertions.assertThrows(TaskRejectedException.class, () -> encoder.encode("c"));
+
+        release.countDown();
+        Assertions.assertEquals("hash", running.get(5, TimeUnit.SECONDS));
+        Assertions.assertEquals("hash", queued.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void shouldRejectWhenHashingTimesOut() {
+        encoder.shutdown();
+        encoder = new BoundedPasswordEncoder(delegate, 1, 1, Duration.ofMillis(50));
+        Mockito.when(delegate.encode(Mockito.any())).thenAnswer(invocation -> {
+            release.await();
+            return "hash";
+        });
+
+        Assertions.assertThrows(TaskRejectedException.class, () -> encoder.encode("a"));
+    }
+
+    @Test
+    public void shouldPropagateDelegateException() {
+        Mockito.when(delegate.encode(Mockito.any())).thenThrow(new IllegalArgumentException("bad"));
+
+        IllegalArgumentException e = Assertions.assertThrows(IllegalArgumentException.class, () -> encoder.encode("a"));
+        Assertions.assertEquals("bad", e.getMessage());
+    }
+}
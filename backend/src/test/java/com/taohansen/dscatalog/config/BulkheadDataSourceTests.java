@@ -0,0 +1,66 @@
+package com.taohansen.dscatalog.config;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+
+public class BulkheadDataSourceTests {
+
+    private DataSource target;
+    private BulkheadDataSource dataSource;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        target = Mockito.mock(DataSource.class);
+        Mockito.when(target.getConnection()).thenAnswer(invocation -> Mockito.mock(Connection.class));
+        dataSource = new BulkheadDataSource(target, 2, Duration.ofMillis(50));
+    }
+
+    @Test
+    public void getConnectionShouldFailFastWhenAllPermitsAreInUse() throws Exception {
+        dataSource.getConnection();
+        dataSource.getConnection();
+
+        Assertions.assertThrows(SQLTransientConnectionException.class, () -> dataSource.getConnection());
+        Mockito.verify(target, Mockito.times(2)).getConnection();
+    }
+
+    @Test
+    public void closeShouldReleasePermitOnce() throws Exception {
+        Connection connection = dataSource.getConnection();
+        Assertions.assertEquals(1, dataSource.getAvailablePermits());
+
+        connection.close();
+        connection.close();
+
+        Assertions.assertEquals(2, dataSource.getAvailablePermits());
+    }
+
+    @Test
+    public void getConnectionShouldReleasePermitWhenTargetFails() throws Exception {
+        Mockito.when(target.getConnection()).thenThrow(new SQLException("pool closed"));
+
+        Assertions.assertThrows(SQLException.class, () -> dataSource.getConnection());
+        Assertions.assertEquals(2, dataSource.getAvailablePermits());
+    }
+
+    @Test
+    public void connectionShouldDelegateOtherCalls() throws Exception {
+        Connection physical = Mockito.mock(Connection.class);
+        Mockito.when(target.getConnection()).thenReturn(physical);
+
+        Connection connection = dataSource.getConnection();
+        connection.setAutoCommit(false);
+        connection.close();
+
+        Mockito.verify(physical).setAutoCommit(false);
+        Mockito.verify(physical).close();
+    }
+}
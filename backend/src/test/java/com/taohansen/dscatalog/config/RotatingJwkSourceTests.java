@@ -0,0 +1,99 @@
+package com.taohansen.dscatalog.config;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.KeySourceException;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKMatcher;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class RotatingJwkSourceTests {
+
+    private static final JWKSelector ANY = new JWKSelector(new JWKMatcher.Builder().build());
+
+    private RSAKey oldKey;
+    private RSAKey newKey;
+    private AtomicReference<List<RSAKey>> stored;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() throws JOSEException {
+        oldKey = new RSAKeyGenerator(2048).keyID("old").generate();
+        newKey = new RSAKeyGenerator(2048).keyID("new").generate();
+        stored = new AtomicReference<>(List.of(oldKey));
+        loads = new AtomicInteger();
+    }
+
+    @Test
+    public void getShouldServeKeysFromCacheWithinTtl() {
+        RotatingJwkSource source = source(Duration.ofMinutes(5), Duration.ZERO);
+
+        source.get(ANY, null);
+        stored.set(List.of(newKey, oldKey));
+        List<JWK> keys = source.get(ANY, null);
+
+        Assertions.assertEquals(1, loads.get());
+        Assertions.assertEquals(List.of("old"), keyIds(keys));
+    }
+
+    @Test
+    public void getShouldReloadAfterTtl() {
+        RotatingJwkSource source = source(Duration.ZERO, Duration.ZERO);
+
+        source.get(ANY, null);
+        stored.set(List.of(newKey, oldKey));
+
+        Assertions.assertEquals(List.of("new", "old"), keyIds(source.get(ANY, null)));
+    }
+
+    @Test
+    public void unknownKeyIdShouldReloadBeforeTtl() {
+        RotatingJwkSource source = source(Duration.ofMinutes(5), Duration.ZERO);
+        source.get(ANY, null);
+        stored.set(List.of(newKey, oldKey));
+
+        List<JWK> keys = source.get(new JWKSelector(new JWKMatcher.Builder().keyID("new").build()), null);
+
+        Assertions.assertEquals(List.of("new"), keyIds(keys));
+        Assertions.assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void unknownKeyIdShouldNotReloadWithinMinReloadInterval() {
+        RotatingJwkSource source = source(Duration.ofMinutes(5), Duration.ofMinutes(1));
+        source.get(ANY, null);
+
+        List<JWK> keys = source.get(new JWKSelector(new JWKMatcher.Builder().keyID("forged").build()), null);
+
+        Assertions.assertTrue(keys.isEmpty());
+        Assertions.assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void signingKeyShouldBeFirstLoadedKeyOnly() throws KeySourceException {
+        stored.set(List.of(newKey, oldKey));
+        RotatingJwkSource source = source(Duration.ofMinutes(5), Duration.ZERO);
+
+        Assertions.assertEquals(List.of("new"), keyIds(source.signingKey().get(ANY, null)));
+    }
+
+    private RotatingJwkSource source(Duration ttl, Duration minReloadInterval) {
+        return new RotatingJwkSource(() -> {
+            loads.incrementAndGet();
+            return stored.get();
+        }, ttl, minReloadInterval);
+    }
+
+    private static List<String> keyIds(List<JWK> keys) {
+        return keys.stream().map(JWK::getKeyID).toList();
+    }
+}
@@ -0,0 +1,104 @@
+package com.taohansen.dscatalog.config.customgrant;
+
+import com.taohansen.dscatalog.config.BoundedPasswordEncoder;
+import com.taohansen.dscatalog.services.UserDetailsCache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class CustomPasswordAuthenticationProviderIntegrationTest {
+
+    private static final String USERNAME = "alex@gmail.com";
+    private static final String PASSWORD = "123456";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private UserDetailsCache userDetailsCache;
+
+    @Value("${security.client-id}")
+    private String clientId;
+
+    @Value("${security.client-secret}")
+    private String clientSecret;
+
+    private String originalHash;
+
+    @BeforeEach
+    void setUp() {
+        originalHash = storedHash();
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("UPDATE tb_user SET password = ? WHERE email = ?", originalHash, USERNAME);
+        userDetailsCache.evict(USERNAME);
+    }
+
+    @Test
+    public void loginShouldRehashLegacyPassword() throws Exception {
+        Assertions.assertFalse(originalHash.startsWith("{"));
+
+        token(PASSWORD).andExpect(status().isOk()).andExpect(jsonPath("$.access_token").exists());
+
+        String rehashed = storedHash();
+        Assertions.assertTrue(rehashed.startsWith("{bcrypt}"));
+        Assertions.assertTrue(passwordEncoder.matches(PASSWORD, rehashed));
+        Assertions.assertFalse(passwordEncoder.upgradeEncoding(rehashed));
+
+        token(PASSWORD).andExpect(status().isOk());
+        Assertions.assertEquals(rehashed, storedHash());
+    }
+
+    @Test
+    public void loginShouldHashOnlyTheUserPasswordOnTheBoundedPool() throws Exception {
+        token(PASSWORD).andExpect(status().isOk());
+        long submitted = ((BoundedPasswordEncoder) passwordEncoder).getExecutor().getTaskCount();
+
+        token(PASSWORD).andExpect(status().isOk());
+
+        Assertions.assertEquals(submitted + 1, ((BoundedPasswordEncoder) passwordEncoder).getExecutor().getTaskCount());
+    }
+
+    @Test
+    public void failedLoginShouldNotRehashPassword() throws Exception {
+        token("wrong").andExpect(status().isBadRequest());
+
+        Assertions.assertEquals(originalHash, storedHash());
+    }
+
+    private ResultActions token(String password) throws Exception {
+        return mockMvc.perform(post("/oauth2/token")
+                .with(httpBasic(clientId, clientSecret))
+                .param("grant_type", "password")
+                .param("username", USERNAME)
+                .param("password", password));
+    }
+
+    private String storedHash() {
+        return jdbcTemplate.queryForObject("SELECT password FROM tb_user WHERE email = ?", String.class, USERNAME);
+    }
+}
@@ -0,0 +1,134 @@
+package com.taohansen.dscatalog.config.customgrant;
+
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Logs distinct users in from many threads at once and checks that every token carries its own user's claims.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:loginstressdb",
+        "catalog.security.password.bcrypt-strength=4"
+})
+@AutoConfigureMockMvc
+public class CustomPasswordAuthenticationProviderStressIntegrationTest {
+
+    private static final int USERS = 24;
+    private static final int LOGINS_PER_USER = 10;
+    private static final int THREADS = 16;
+    private static final String PASSWORD = "stress-password";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private JwtDecoder jwtDecoder;
+
+    @Value("${security.client-id}")
+    private String clientId;
+
+    @Value("${security.client-secret}")
+    private String clientSecret;
+
+    @BeforeEach
+    void setUp() {
+        if (jdbcTemplate.queryForObject("SELECT COUNT(*) FROM tb_user WHERE email LIKE 'stress%'", Long.class) > 0) {
+            return;
+        }
+        String hash = passwordEncoder.encode(PASSWORD);
+        for (int i = 0; i < USERS; i++) {
+            jdbcTemplate.update("INSERT INTO tb_user (first_name, last_name, email, password) VALUES ('Stress', ?, ?, ?)",
+                    String.valueOf(i), email(i), hash);
+            Long id = jdbcTemplate.queryForObject("SELECT id FROM tb_user WHERE email = ?", Long.class, email(i));
+            for (Long roleId : roleIds(i)) {
+                jdbcTemplate.update("INSERT INTO tb_user_role (user_id, role_id) VALUES (?, ?)", id, roleId);
+            }
+        }
+    }
+
+    @Test
+    public void concurrentLoginsShouldIssueTokensWithOwnClaims() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> logins = new ArrayList<>();
+        try {
+            for (int round = 0; round < LOGINS_PER_USER; round++) {
+                for (int i = 0; i < USERS; i++) {
+                    int user = i;
+                    logins.add(executor.submit(() -> {
+                        start.await();
+                        assertClaims(user, login(user));
+                        return null;
+                    }));
+                }
+            }
+            start.countDown();
+            for (Future<?> login : logins) {
+                login.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private String login(int user) throws Exception {
+        String body = mockMvc.perform(post("/oauth2/token")
+                        .with(httpBasic(clientId, clientSecret))
+                        .param("grant_type", "password")
+                        .param("username", email(user))
+                        .param("password", PASSWORD))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return JsonPath.read(body, "$.access_token");
+    }
+
+    private void assertClaims(int user, String accessToken) {
+        Jwt jwt = jwtDecoder.decode(accessToken);
+        Assertions.assertEquals(email(user), jwt.getClaimAsString("username"));
+        Assertions.assertEquals(authorities(user), new HashSet<>(jwt.getClaimAsStringList("authorities")));
+        Assertions.assertEquals(clientId, jwt.getSubject());
+    }
+
+    private static String email(int user) {
+        return "stress" + user + "@gmail.com";
+    }
+
+    private static List<Long> roleIds(int user) {
+        return user % 2 == 0 ? List.of(1L, 2L) : List.of(1L);
+    }
+
+    private static Set<String> authorities(int user) {
+        return user % 2 == 0 ? Set.of("ROLE_OPERATOR", "ROLE_ADMIN") : Set.of("ROLE_OPERATOR");
+    }
+}
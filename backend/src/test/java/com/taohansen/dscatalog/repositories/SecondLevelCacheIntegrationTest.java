@@ -0,0 +1,101 @@
+package com.taohansen.dscatalog.repositories;
+
+import com.taohansen.dscatalog.dto.ProductDTO;
+import com.taohansen.dscatalog.entities.Category;
+import com.taohansen.dscatalog.entities.Role;
+import com.taohansen.dscatalog.services.ProductService;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+@SpringBootTest
+public class SecondLevelCacheIntegrationTest {
+
+    private static final String CATEGORY_REGION = Category.class.getName();
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ProductService productService;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    public void findByIdShouldBeServedFromSecondLevelCache() {
+        categoryRepository.findById(1L);
+        statistics.clear();
+
+        Category category = categoryRepository.findById(1L).orElseThrow();
+
+        Assertions.assertEquals(1L, category.getId());
+        Assertions.assertEquals(0L, statistics.getPrepareStatementCount());
+        Assertions.assertEquals(1L, statistics.getDomainDataRegionStatistics(CATEGORY_REGION).getHitCount());
+    }
+
+    @Test
+    public void findByAuthorityShouldBeServedFromQueryCache() {
+        roleRepository.findByAuthority("ROLE_OPERATOR");
+        statistics.clear();
+
+        Role role = roleRepository.findByAuthority("ROLE_OPERATOR");
+
+        Assertions.assertEquals("ROLE_OPERATOR", role.getAuthority());
+        Assertions.assertEquals(0L, statistics.getPrepareStatementCount());
+        Assertions.assertEquals(1L, statistics.getQueryCacheHitCount());
+    }
+
+    @Test
+    public void productWriteShouldNotEvictUnrelatedRegions() {
+        categoryRepository.findById(1L);
+        roleRepository.findByAuthority("ROLE_OPERATOR");
+        ProductDTO product = productService.findById(1L);
+
+        // refreshes the listing view with native statements
+        productService.update(1L, product);
+        statistics.clear();
+
+        categoryRepository.findById(1L);
+        roleRepository.findByAuthority("ROLE_OPERATOR");
+        Assertions.assertEquals(0L, statistics.getPrepareStatementCount());
+        Assertions.assertEquals(1L, statistics.getDomainDataRegionStatistics(CATEGORY_REGION).getHitCount());
+    }
+
+    @Test
+    public void findAllShouldBeServedFromQueryCache() {
+        int total = categoryRepository.findAll().size();
+        statistics.clear();
+
+        Assertions.assertEquals(total, categoryRepository.findAll().size());
+        Assertions.assertEquals(0L, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    public void regionStatisticsShouldBeExposedAsMetrics() {
+        categoryRepository.findById(1L);
+
+        Assertions.assertFalse(meterRegistry.find("hibernate.second.level.cache.requests")
+                .tag("region", CATEGORY_REGION).functionCounters().isEmpty());
+        Assertions.assertFalse(meterRegistry.find("hibernate.cache.query.requests").functionCounters().isEmpty());
+    }
+}
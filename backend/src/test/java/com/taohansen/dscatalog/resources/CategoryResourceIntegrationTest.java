@@ -0,0 +1,119 @@
+package com.taohansen.dscatalog.resources;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.taohansen.dscatalog.dto.CategoryDTO;
+import com.taohansen.dscatalog.services.snapshot.CategorySnapshotHolder;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.jwt;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class CategoryResourceIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private CategorySnapshotHolder snapshotHolder;
+
+    @Test
+    public void findAllShouldReturnSnapshotBytes() throws Exception {
+        MvcResult result = mockMvc.perform(get("/categories").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$[0].id").value(1L))
+                .andReturn();
+
+        Assertions.assertArrayEquals(snapshotHolder.get().json(), result.getResponse().getContentAsByteArray());
+        Assertions.assertEquals(snapshotHolder.get().version().etag(), result.getResponse().getHeader("ETag"));
+    }
+
+    @Test
+    public void findAllShouldReflectCommittedWrites() throws Exception {
+        String etag = mockMvc.perform(get("/categories"))
+                .andReturn().getResponse().getHeader("ETag");
+        mockMvc.perform(get("/categories").header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+
+        String body = mockMvc.perform(post("/categories")
+                        .with(jwt().authorities(new SimpleGrantedAuthority("ROLE_ADMIN")))
+                        .content("{\"name\": \"Snapshot\"}")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        long id = objectMapper.readTree(body).get("id").asLong();
+        try {
+            Assertions.assertEquals("Snapshot", nameOf(id));
+            mockMvc.perform(get("/categories").header("If-None-Match", etag))
+                    .andExpect(status().isOk());
+
+            mockMvc.perform(put("/categories/{id}", id)
+                    .with(jwt().authorities(new SimpleGrantedAuthority("ROLE_ADMIN")))
+                    .content("{\"name\": \"Snapshot Renamed\"}")
+                    .contentType(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isOk());
+            Assertions.assertEquals("Snapshot Renamed", nameOf(id));
+        } finally {
+            mockMvc.perform(delete("/categories/{id}", id)
+                    .with(jwt().authorities(new SimpleGrantedAuthority("ROLE_ADMIN"))))
+                    .andExpect(status().isNoContent());
+        }
+        Assertions.assertNull(nameOf(id));
+    }
+
+    @Test
+    public void updateShouldRenameCategoryInProductReads() throws Exception {
+        mockMvc.perform(get("/products/{id}", 25L))
+                .andExpect(jsonPath("$.categories[0].name").value("Computadores"));
+        mockMvc.perform(get("/products?name=PC Gamer&sort=id"))
+                .andExpect(jsonPath("$.content[0].categories[0].name").value("Computadores"));
+        try {
+            rename(3L, "Computers");
+
+            mockMvc.perform(get("/products/{id}", 25L))
+                    .andExpect(jsonPath("$.categories[0].name").value("Computers"));
+            mockMvc.perform(get("/products?name=PC Gamer&sort=id"))
+                    .andExpect(jsonPath("$.content[0].categories[0].name").value("Computers"));
+        } finally {
+            rename(3L, "Computadores");
+        }
+    }
+
+    private void rename(long id, String name) throws Exception {
+        mockMvc.perform(put("/categories/{id}", id)
+                .with(jwt().authorities(new SimpleGrantedAuthority("ROLE_ADMIN")))
+                .content(objectMapper.writeValueAsString(new CategoryDTO(id, name)))
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+    }
+
+    private String nameOf(long id) throws Exception {
+        byte[] json = mockMvc.perform(get("/categories")).andReturn().getResponse().getContentAsByteArray();
+        for (JsonNode category : objectMapper.readTree(json)) {
+            if (category.get("id").asLong() == id) {
+                return category.get("name").asText();
+            }
+        }
+        return null;
+    }
+}
@@ -1,21 +1,38 @@
 package com.taohansen.dscatalog.resources;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.taohansen.dscatalog.dto.ProductDTO;
 import com.taohansen.dscatalog.repositories.ProductRepository;
+import com.taohansen.dscatalog.services.version.CatalogVersionService;
 import com.taohansen.dscatalog.tests.Factory;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.jwt;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -30,6 +47,12 @@ public class ProductResourceIntegrationTest {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private CatalogVersionService catalogVersion;
+
     private Long existingId;
     private Long nonExistingId;
     private Long countTotalProducts;
@@ -54,6 +77,337 @@ public class ProductResourceIntegrationTest {
         result.andExpect(jsonPath("$.content[2].name").value("PC Gamer Alfa"));
     }
 
+    @Test
+    public void findAllByCursorShouldWalkEveryProductInSortOrder() throws Exception {
+        List<String> names = new ArrayList<>();
+        String after = "";
+        do {
+            ResultActions result = mockMvc.perform(get("/products?sort=name&size=10&after={after}", after)
+                    .accept(MediaType.APPLICATION_JSON));
+            result.andExpect(status().isOk());
+            JsonNode body = objectMapper.readTree(result.andReturn().getResponse().getContentAsString());
+            body.get("content").forEach(product -> names.add(product.get("name").asText()));
+            after = body.get("next").isNull() ? null : body.get("next").asText();
+        } while (after != null);
+
+        Assertions.assertEquals(countTotalProducts, names.size());
+        Assertions.assertEquals("Macbook Pro", names.get(0));
+        Assertions.assertEquals("PC Gamer", names.get(1));
+        Assertions.assertEquals("The Lord of the Rings", names.get(names.size() - 1));
+    }
+
+    @Test
+    public void findAllByCursorShouldSeekByPriceDescending() throws Exception {
+        ResultActions first = mockMvc.perform(get("/products?sort=price,desc&size=2&after=")
+                .accept(MediaType.APPLICATION_JSON));
+        first.andExpect(status().isOk());
+        first.andExpect(jsonPath("$.content[0].name").value("PC Gamer Foo"));
+        first.andExpect(jsonPath("$.content[1].name").value("PC Gamer Boo"));
+        String next = objectMapper.readTree(first.andReturn().getResponse().getContentAsString()).get("next").asText();
+
+        ResultActions second = mockMvc.perform(get("/products?size=2&after={after}", next)
+                .accept(MediaType.APPLICATION_JSON));
+        second.andExpect(status().isOk());
+        second.andExpect(jsonPath("$.content[0].name").value("PC Gamer Max"));
+    }
+
+    @Test
+    public void findAllByCursorShouldWalkProductsWithoutPriceLastAscendingAndFirstDescending() throws Exception {
+        for (String table : List.of("tb_product", "tb_product_view")) {
+            jdbcTemplate.update("UPDATE " + table + " SET price = NULL WHERE id IN (2, 5, 9)");
+        }
+
+        List<Long> ascending = walkIds("price");
+        List<Long> descending = walkIds("price,desc");
+
+        Assertions.assertEquals(countTotalProducts, ascending.size());
+        Assertions.assertEquals(countTotalProducts, ascending.stream().distinct().count());
+        Assertions.assertEquals(List.of(2L, 5L, 9L), ascending.subList(ascending.size() - 3, ascending.size()));
+        Assertions.assertEquals(List.of(9L, 5L, 2L), descending.subList(0, 3));
+        Collections.reverse(descending);
+        Assertions.assertEquals(ascending, descending);
+    }
+
+    private List<Long> walkIds(String sort) throws Exception {
+        List<Long> ids = new ArrayList<>();
+        String after = "";
+        do {
+            ResultActions result = mockMvc.perform(get("/products?sort={sort}&size=2&after={after}", sort, after)
+                    .accept(MediaType.APPLICATION_JSON));
+            result.andExpect(status().isOk());
+            JsonNode body = objectMapper.readTree(result.andReturn().getResponse().getContentAsString());
+            body.get("content").forEach(product -> ids.add(product.get("id").asLong()));
+            after = body.get("next").isNull() ? null : body.get("next").asText();
+        } while (after != null);
+        return ids;
+    }
+
+    @Test
+    public void findAllByCursorShouldReturnBadRequestWhenCursorIsInvalid() throws Exception {
+        ResultActions result = mockMvc.perform(get("/products?after=not-a-cursor")
+                .accept(MediaType.APPLICATION_JSON));
+        result.andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void findAllShouldReturnProductsInEveryCategoryWhenCategoryAllIsGiven() throws Exception {
+        ResultActions result = mockMvc.perform(get("/products?categoryAll=1,3")
+                .accept(MediaType.APPLICATION_JSON));
+        result.andExpect(status().isOk());
+        result.andExpect(jsonPath("$.totalElements").value(1));
+        result.andExpect(jsonPath("$.content[0].name").value("Smart TV"));
+    }
+
+    @Test
+    public void findAllShouldExcludeCategoriesWhenCategoryNotIsGiven() throws Exception {
+        ResultActions result = mockMvc.perform(get("/products?categoryId=2,3&categoryNot=3&sort=id")
+                .accept(MediaType.APPLICATION_JSON));
+        result.andExpect(status().isOk());
+        result.andExpect(jsonPath("$.totalElements").value(2));
+        result.andExpect(jsonPath("$.content[0].id").value(1L));
+        result.andExpect(jsonPath("$.content[1].id").value(5L));
+    }
+
+    @Test
+    public void findAllByCursorShouldApplyCategoryExpression() throws Exception {
+        ResultActions result = mockMvc.perform(get("/products?categoryNot=2&sort=name&size=30&after=")
+                .accept(MediaType.APPLICATION_JSON));
+        result.andExpect(status().isOk());
+        result.andExpect(jsonPath("$.content.length()").value(countTotalProducts - 2));
+        result.andExpect(jsonPath("$.next").isEmpty());
+    }
+
+    @Test
+    public void findAllShouldReturnCategoryFacetsWhenRequested() throws Exception {
+        ResultActions result = mockMvc.perform(get("/products?facets=true")
+                .accept(MediaType.APPLICATION_JSON));
+        result.andExpect(status().isOk());
+        result.andExpect(jsonPath("$.totalElements").value(countTotalProducts));
+        result.andExpect(jsonPath("$.facets.length()").value(3));
+        result.andExpect(jsonPath("$.facets[0].name").value("Computadores"));
+        result.andExpect(jsonPath("$.facets[0].count").value(23));
+        result.andExpect(jsonPath("$.facets[1].count").value(1));
+        result.andExpect(jsonPath("$.facets[2].count").value(2));
+    }
+
+    @Test
+    public void findAllShouldNotReturnFacetsByDefault() throws Exception {
+        ResultActions result = mockMvc.perform(get("/products")
+                .accept(MediaType.APPLICATION_JSON));
+        result.andExpect(status().isOk());
+        result.andExpect(jsonPath("$.facets").doesNotExist());
+    }
+
+    @Test
+    public void suggestShouldReturnNamesStartingWithPrefix() throws Exception {
+        ResultActions result = mockMvc.perform(get("/products/suggest?prefix=gamer t&limit=3")
+                .accept(MediaType.APPLICATION_JSON));
+        result.andExpect(status().isOk());
+        result.andExpect(jsonPath("$.length()").value(3));
+        result.andExpect(jsonPath("$[0]").value("PC Gamer Tera"));
+        result.andExpect(jsonPath("$[1]").value("PC Gamer Tr"));
+        result.andExpect(jsonPath("$[2]").value("PC Gamer Turbo"));
+    }
+
+    @Test
+    public void exportShouldStreamEveryProductAsNdjson() throws Exception {
+        ResultActions result = mockMvc.perform(get("/products/export"));
+        result.andExpect(status().isOk());
+        result.andExpect(header().string("Content-Type", "application/x-ndjson"));
+
+        String[] lines = result.andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8).split("\n");
+        Assertions.assertEquals(countTotalProducts, lines.length);
+        JsonNode first = objectMapper.readTree(lines[0]);
+        Assertions.assertEquals(existingId, first.get("id").asLong());
+        Assertions.assertEquals("The Lord of the Rings", first.get("name").asText());
+        Assertions.assertEquals("Livros", first.get("categories").get(0).get("name").asText());
+    }
+
+    @Test
+    public void exportShouldStreamGzippedCsvWhenClientAcceptsGzip() throws Exception {
+        ResultActions result = mockMvc.perform(get("/products/export?format=csv")
+                .header("Accept-Encoding", "gzip, deflate"));
+        result.andExpect(status().isOk());
+        result.andExpect(header().string("Content-Encoding", "gzip"));
+
+        byte[] body = result.andReturn().getResponse().getContentAsByteArray();
+        String csv = new String(new GZIPInputStream(new ByteArrayInputStream(body)).readAllBytes(), StandardCharsets.UTF_8);
+        String[] lines = csv.split("\r\n");
+        Assertions.assertEquals(countTotalProducts + 1, lines.length);
+        Assertions.assertEquals("id,name,description,price,imgUrl,date,categoryIds,categoryNames", lines[0]);
+        Assertions.assertTrue(lines[2].startsWith("2,Smart TV,"));
+        Assertions.assertTrue(lines[2].contains(",2020-07-14T10:00:00Z,1|3,"));
+        Assertions.assertTrue(lines[2].endsWith("|Computadores"));
+    }
+
+    @Test
+    public void exportShouldStreamIdentityWhenClientRefusesGzip() throws Exception {
+        ResultActions result = mockMvc.perform(get("/products/export")
+                .header("Accept-Encoding", "gzip;q=0, deflate"));
+        result.andExpect(status().isOk());
+        result.andExpect(header().doesNotExist("Content-Encoding"));
+
+        String[] lines = result.andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8).split("\n");
+        Assertions.assertEquals(countTotalProducts, lines.length);
+    }
+
+    @Test
+    public void exportShouldReturnBadRequestWhenFormatIsUnsupported() throws Exception {
+        ResultActions result = mockMvc.perform(get("/products/export?format=xml"));
+        result.andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void findAllShouldReturnOnlyRequestedFields() throws Exception {
+        ResultActions result = mockMvc.perform(get("/products?sort=name&fields=name,price")
+                .accept(MediaType.APPLICATION_JSON));
+        result.andExpect(status().isOk());
+        result.andExpect(jsonPath("$.totalElements").value(countTotalProducts));
+        result.andExpect(jsonPath("$.content[0].id").value(3L));
+        result.andExpect(jsonPath("$.content[0].name").value("Macbook Pro"));
+        result.andExpect(jsonPath("$.content[0].price").value(1250.0));
+        result.andExpect(jsonPath("$.content[0].description").doesNotExist());
+        result.andExpect(jsonPath("$.content[0].categories").doesNotExist());
+    }
+
+    @Test
+    public void findByIdShouldReturnOnlyRequestedFields() throws Exception {
+        ResultActions result = mockMvc.perform(get("/products/{id}?fields=categories,imgUrl", 2L)
+                .accept(MediaType.APPLICATION_JSON));
+        result.andExpect(status().isOk());
+        result.andExpect(jsonPath("$.id").value(2L));
+        result.andExpect(jsonPath("$.imgUrl").exists());
+        result.andExpect(jsonPath("$.categories.length()").value(2));
+        result.andExpect(jsonPath("$.name").doesNotExist());
+        result.andExpect(jsonPath("$.description").doesNotExist());
+    }
+
+    @Test
+    public void findAllShouldReturnBadRequestWhenFieldIsUnknown() throws Exception {
+        ResultActions result = mockMvc.perform(get("/products?fields=name,secret")
+                .accept(MediaType.APPLICATION_JSON));
+        result.andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void findByIdShouldChangeETagWhenProductIsUpdated() throws Exception {
+        String etag = mockMvc.perform(get("/products/{id}", existingId))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        mockMvc.perform(get("/products/{id}", existingId).header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+
+        ProductDTO productDTO = Factory.createProductDTO("Renamed");
+        mockMvc.perform(put("/products/{id}", existingId)
+                .with(jwt().authorities(new SimpleGrantedAuthority("ROLE_ADMIN")))
+                .content(objectMapper.writeValueAsString(productDTO))
+                .contentType(MediaType.APPLICATION_JSON));
+
+        ResultActions result = mockMvc.perform(get("/products/{id}", existingId).header("If-None-Match", etag));
+        result.andExpect(status().isOk());
+        Assertions.assertNotEquals(etag, result.andReturn().getResponse().getHeader("ETag"));
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void findAllShouldChangeETagOncePerCommittedWrite() throws Exception {
+        // other test contexts share this database, so the version held in memory may lag the row
+        catalogVersion.refresh();
+        String etag = mockMvc.perform(get("/products"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        mockMvc.perform(get("/products").header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+
+        try {
+            mockMvc.perform(post("/products/import")
+                    .with(jwt().authorities(new SimpleGrantedAuthority("ROLE_ADMIN")))
+                    .content("""
+                            [
+                              {"name": "Versioned One", "description": "First", "price": 10.0, "categories": [{"id": 1}]},
+                              {"name": "Versioned Two", "description": "Second", "price": 20.0, "categories": [{"id": 1}]}
+                            ]
+                            """)
+                    .contentType(MediaType.APPLICATION_JSON))
+                    .andExpect(jsonPath("$.imported").value(2));
+
+            String changed = mockMvc.perform(get("/products").header("If-None-Match", etag))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getHeader("ETag");
+            Assertions.assertEquals(version(etag) + 1, version(changed));
+        } finally {
+            for (Long id : jdbcTemplate.queryForList("SELECT id FROM tb_product WHERE name LIKE 'Versioned%'", Long.class)) {
+                mockMvc.perform(delete("/products/{id}", id)
+                        .with(jwt().authorities(new SimpleGrantedAuthority("ROLE_ADMIN"))));
+            }
+        }
+    }
+
+    private static long version(String etag) {
+        return Long.parseLong(etag.replaceAll("\\D", ""));
+    }
+
+    @Test
+    public void importShouldInsertValidJsonRowsAndReportInvalidOnes() throws Exception {
+        String body = """
+                [
+                  {"name": "Imported One", "description": "First", "price": 10.0, "categories": [{"id": 1}]},
+                  {"name": "Imported Two", "description": "Second", "price": 20.0, "categories": [{"id": 2}, {"id": 3}]},
+                  {"name": "ab", "description": "Name too short", "price": 30.0}
+                ]
+                """;
+
+        ResultActions result = mockMvc.perform(post("/products/import?chunkSize=1")
+                .with(jwt().authorities(new SimpleGrantedAuthority("ROLE_ADMIN")))
+                .content(body)
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON));
+        result.andExpect(status().isOk());
+        result.andExpect(jsonPath("$.imported").value(2));
+        result.andExpect(jsonPath("$.failed").value(1));
+        result.andExpect(jsonPath("$.rowsPerSecond").exists());
+        result.andExpect(jsonPath("$.errors[0].row").value(3));
+
+        mockMvc.perform(get("/products?name=imported").accept(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.totalElements").value(2));
+    }
+
+    @Test
+    public void importShouldInsertCsvRowsAndRejectUnknownCategories() throws Exception {
+        String body = "name,description,price,imgUrl,date,categoryIds\r\n"
+                + "Imported Csv,\"Quoted, with \"\"comma\"\"\",15.5,,2020-07-14T10:00:00Z,1|3\r\n"
+                + "Imported Bad,Unknown category,15.5,,,99\r\n";
+
+        ResultActions result = mockMvc.perform(post("/products/import")
+                .with(jwt().authorities(new SimpleGrantedAuthority("ROLE_OPERATOR")))
+                .content(body)
+                .contentType("text/csv")
+                .accept(MediaType.APPLICATION_JSON));
+        result.andExpect(status().isOk());
+        result.andExpect(jsonPath("$.imported").value(1));
+        result.andExpect(jsonPath("$.failed").value(1));
+        result.andExpect(jsonPath("$.errors[0].row").value(2));
+
+        mockMvc.perform(get("/products?name=imported csv").accept(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.content[0].description").value("Quoted, with \"comma\""))
+                .andExpect(jsonPath("$.content[0].categories.length()").value(2));
+    }
+
+    @Test
+    public void importShouldReturnUnauthorizedWhenNoToken() throws Exception {
+        ResultActions result = mockMvc.perform(post("/products/import")
+                .content("[]")
+                .contentType(MediaType.APPLICATION_JSON));
+        result.andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    public void findAllShouldReturnBadRequestWhenCategoryFilterIsInvalid() throws Exception {
+        ResultActions result = mockMvc.perform(get("/products?categoryAll=1,abc")
+                .accept(MediaType.APPLICATION_JSON));
+        result.andExpect(status().isBadRequest());
+    }
+
     @Test
     public void updateShouldReturnProductDTOWhenIdExists() throws Exception {
         String EXPECTED_NAME = "TEST";
@@ -61,6 +415,7 @@ public class ProductResourceIntegrationTest {
         String jsonBody = objectMapper.writeValueAsString(productDTO);
 
         ResultActions result = mockMvc.perform(put("/products/{id}", existingId)
+                .with(jwt().authorities(new SimpleGrantedAuthority("ROLE_ADMIN")))
                 .content(jsonBody)
                 .contentType(MediaType.APPLICATION_JSON)
                 .accept(MediaType.APPLICATION_JSON));
@@ -77,6 +432,7 @@ public class ProductResourceIntegrationTest {
         String jsonBody = objectMapper.writeValueAsString(productDTO);
 
         ResultActions result = mockMvc.perform(put("/products/{id}", nonExistingId)
+                .with(jwt().authorities(new SimpleGrantedAuthority("ROLE_ADMIN")))
                 .content(jsonBody)
                 .contentType(MediaType.APPLICATION_JSON)
                 .accept(MediaType.APPLICATION_JSON));
@@ -1,30 +1,60 @@
 package com.taohansen.dscatalog.resources;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.taohansen.dscatalog.config.JacksonConfig;
 import com.taohansen.dscatalog.dto.ProductDTO;
+import com.taohansen.dscatalog.services.ProductExportService;
+import com.taohansen.dscatalog.services.ProductImportService;
 import com.taohansen.dscatalog.services.ProductService;
 import com.taohansen.dscatalog.services.exceptions.DatabaseException;
 import com.taohansen.dscatalog.services.exceptions.ResourceNotFoundException;
+import com.taohansen.dscatalog.services.json.ProductJsonCache;
+import com.taohansen.dscatalog.services.search.ProductFields;
+import com.taohansen.dscatalog.services.version.CatalogVersionService;
+import com.taohansen.dscatalog.services.version.ResourceVersion;
 import com.taohansen.dscatalog.tests.Factory;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentMatchers;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.support.NoOpCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.ResultActions;
 
+import java.io.ByteArrayInputStream;
+import java.time.Instant;
 import java.util.List;
+import java.util.zip.GZIPInputStream;
 
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(ProductResource.class)
+@WithMockUser
+@Import({JacksonConfig.class, ProductJsonCache.class, ProductResourceTests.NoCacheConfig.class})
 public class ProductResourceTests {
+
+    @TestConfiguration
+    static class NoCacheConfig {
+        @Bean
+        public CacheManager cacheManager() {
+            return new NoOpCacheManager();
+        }
+    }
+
     @Autowired
     private MockMvc mockMvc;
 
@@ -33,6 +63,12 @@ public class ProductResourceTests {
 
     @MockBean
     private ProductService service;
+    @MockBean
+    private ProductExportService exportService;
+    @MockBean
+    private ProductImportService importService;
+    @MockBean
+    private CatalogVersionService catalogVersion;
     private ProductDTO productDTO;
     private PageImpl<ProductDTO> page;
     private Long existingId;
@@ -48,10 +84,14 @@ public class ProductResourceTests {
         productDTO = Factory.createProductDTO();
         page = new PageImpl<>(List.of(productDTO));
 
-        Mockito.when(service.findAllPaged(ArgumentMatchers.any())).thenReturn(page);
+        Mockito.when(service.findAllPaged(ArgumentMatchers.any(), ArgumentMatchers.any(), ArgumentMatchers.any(ProductFields.class), ArgumentMatchers.any())).thenReturn(page);
 
         Mockito.when(service.insert(ArgumentMatchers.any())).thenReturn(productDTO);
 
+        Mockito.when(catalogVersion.current()).thenReturn(new ResourceVersion("catalog-1", null));
+        Mockito.when(service.findVersion(existingId)).thenReturn(ResourceVersion.of("product-1", Instant.parse("2020-07-14T10:00:00Z")));
+        Mockito.when(service.findVersion(nonExistingId)).thenThrow(ResourceNotFoundException.class);
+
         Mockito.when(service.findById(existingId)).thenReturn(productDTO);
         Mockito.when(service.findById(nonExistingId)).thenThrow(ResourceNotFoundException.class);
 
@@ -68,6 +108,7 @@ public class ProductResourceTests {
         String jsonBody = objectMapper.writeValueAsString(productDTO);
 
         ResultActions result = mockMvc.perform(post("/products")
+                .with(csrf())
                 .content(jsonBody)
                 .contentType(MediaType.APPLICATION_JSON)
                 .accept(MediaType.APPLICATION_JSON));
@@ -85,6 +126,7 @@ public class ProductResourceTests {
         String jsonBody = objectMapper.writeValueAsString(productDTO);
 
         ResultActions result = mockMvc.perform(put("/products/{id}", existingId)
+                .with(csrf())
                 .content(jsonBody)
                 .contentType(MediaType.APPLICATION_JSON)
                 .accept(MediaType.APPLICATION_JSON));
@@ -100,6 +142,7 @@ public class ProductResourceTests {
         String jsonBody = objectMapper.writeValueAsString(productDTO);
 
         ResultActions result = mockMvc.perform(put("/products/{id}", nonExistingId)
+                .with(csrf())
                 .content(jsonBody)
                 .contentType(MediaType.APPLICATION_JSON)
                 .accept(MediaType.APPLICATION_JSON));
@@ -123,6 +166,58 @@ public class ProductResourceTests {
         result.andExpect(jsonPath("$.description").exists());
     }
 
+    @Test
+    public void findByIdShouldReturnNotModifiedWithoutLoadingProductWhenETagMatches() throws Exception {
+        String etag = mockMvc.perform(get("/products/{id}", existingId))
+                .andExpect(header().exists("ETag"))
+                .andExpect(header().exists("Last-Modified"))
+                .andReturn().getResponse().getHeader("ETag");
+        Mockito.clearInvocations(service);
+
+        ResultActions result = mockMvc.perform(get("/products/{id}", existingId)
+                .header("If-None-Match", etag));
+        result.andExpect(status().isNotModified());
+        Mockito.verify(service, Mockito.never()).findById(existingId);
+    }
+
+    @Test
+    public void findByIdShouldReturnGzipVariantWhenAccepted() throws Exception {
+        byte[] plain = mockMvc.perform(get("/products/{id}", existingId))
+                .andExpect(header().doesNotExist("Content-Encoding"))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        MockHttpServletResponse response = mockMvc.perform(get("/products/{id}", existingId)
+                        .header("Accept-Encoding", "gzip, deflate"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andExpect(header().string("Vary", "Accept-Encoding"))
+                .andReturn().getResponse();
+
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(response.getContentAsByteArray()))) {
+            Assertions.assertArrayEquals(plain, in.readAllBytes());
+        }
+        Assertions.assertTrue(response.getHeader("ETag").endsWith("-gzip\""));
+    }
+
+    @Test
+    public void findByIdShouldReturnIdentityWhenGzipIsRefused() throws Exception {
+        for (String acceptEncoding : new String[]{"gzip;q=0, deflate", "*;q=0.5, gzip;q=0", "deflate"}) {
+            mockMvc.perform(get("/products/{id}", existingId).header("Accept-Encoding", acceptEncoding))
+                    .andExpect(status().isOk())
+                    .andExpect(header().doesNotExist("Content-Encoding"));
+        }
+        mockMvc.perform(get("/products/{id}", existingId).header("Accept-Encoding", "*"))
+                .andExpect(header().string("Content-Encoding", "gzip"));
+    }
+
+    @Test
+    public void findAllShouldReturnNotModifiedWhenCatalogVersionIsUnchanged() throws Exception {
+        ResultActions result = mockMvc.perform(get("/products")
+                .header("If-None-Match", "\"catalog-1\""));
+        result.andExpect(status().isNotModified());
+        Mockito.verify(service, Mockito.never()).findAllPaged(ArgumentMatchers.any(), ArgumentMatchers.any(), ArgumentMatchers.any());
+    }
+
     @Test
     public void findByIdShouldThrowExceptionWhenIdNonExists() throws Exception {
         ResultActions result = mockMvc.perform(get("/products/{id}", nonExistingId)
@@ -133,6 +228,7 @@ public class ProductResourceTests {
     @Test
     public void deleteShouldReturnNothingWhenDeleteExistId() throws Exception {
         ResultActions result = mockMvc.perform(delete("/products/{id}", existingId)
+                .with(csrf())
                 .accept(MediaType.APPLICATION_JSON));
         result.andExpect(status().isNoContent());
     }
@@ -140,6 +236,7 @@ public class ProductResourceTests {
     @Test
     public void deleteShouldThrowExceptionNotFoundWhenDeleteNonExistId() throws Exception {
         ResultActions result = mockMvc.perform(delete("/products/{id}", nonExistingId)
+                .with(csrf())
                 .accept(MediaType.APPLICATION_JSON));
         result.andExpect(status().isNotFound());
     }
@@ -147,6 +244,7 @@ public class ProductResourceTests {
     @Test
     public void deleteShouldThrowExceptionDatabaseWhenDeleteDependentId() throws Exception {
         ResultActions result = mockMvc.perform(delete("/products/{id}", dependentId)
+                .with(csrf())
                 .accept(MediaType.APPLICATION_JSON));
         result.andExpect(status().isBadRequest());
     }
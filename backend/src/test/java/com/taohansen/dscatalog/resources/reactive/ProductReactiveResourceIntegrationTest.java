@@ -0,0 +1,135 @@
+package com.taohansen.dscatalog.resources.reactive;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.h2.util.DateTimeUtils;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.util.TimeZone;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// a zone other than UTC, so that both APIs must convert the stored local times the same way
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:reactivedb",
+        "catalog.r2dbc.url=r2dbc:h2:mem:///reactivedb"
+})
+@AutoConfigureMockMvc
+public class ProductReactiveResourceIntegrationTest {
+
+    private static final TimeZone DEFAULT_ZONE = TimeZone.getDefault();
+
+    static {
+        setDefaultZone(TimeZone.getTimeZone("America/Sao_Paulo"));
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @AfterAll
+    static void restoreZone() {
+        setDefaultZone(DEFAULT_ZONE);
+    }
+
+    private static void setDefaultZone(TimeZone zone) {
+        TimeZone.setDefault(zone);
+        // H2 caches the JVM zone on first use
+        DateTimeUtils.resetCalendar();
+    }
+
+    @Test
+    public void findAllShouldReturnSamePageAsBlockingApi() throws Exception {
+        JsonNode reactive = json(perform(get("/reactive/products?sort=name,desc&page=1&size=5")));
+        JsonNode blocking = objectMapper.readTree(mockMvc.perform(get("/products?sort=name,desc&page=1&size=5"))
+                .andReturn().getResponse().getContentAsString()).get("content");
+
+        Assertions.assertEquals(5, reactive.size());
+        Assertions.assertEquals(blocking, reactive);
+    }
+
+    @Test
+    public void findAllShouldFilterByNameAndCategory() throws Exception {
+        JsonNode reactive = json(perform(get("/reactive/products?name=ma&categoryId=2,3&sort=id")));
+        JsonNode blocking = objectMapper.readTree(mockMvc.perform(get("/products?name=ma&categoryId=2,3&sort=id"))
+                .andReturn().getResponse().getContentAsString()).get("content");
+
+        Assertions.assertTrue(reactive.size() > 0);
+        Assertions.assertEquals(blocking, reactive);
+    }
+
+    @Test
+    public void findAllShouldStreamNdjsonWhenRequested() throws Exception {
+        String body = mockMvc.perform(asyncDispatch(perform(get("/reactive/products?sort=id&size=3")
+                        .accept(MediaType.APPLICATION_NDJSON))))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = body.strip().split("\n");
+        Assertions.assertEquals(3, lines.length);
+        for (int i = 0; i < lines.length; i++) {
+            Assertions.assertEquals(i + 1, objectMapper.readTree(lines[i]).get("id").asLong());
+        }
+    }
+
+    @Test
+    public void findAllShouldReturnBadRequestWhenSortPropertyIsUnknown() throws Exception {
+        mockMvc.perform(get("/reactive/products?sort=description"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void findByIdShouldReturnSameProductAsBlockingApi() throws Exception {
+        JsonNode reactive = json(perform(get("/reactive/products/{id}", 4L)));
+        JsonNode blocking = objectMapper.readTree(mockMvc.perform(get("/products/{id}", 4L))
+                .andReturn().getResponse().getContentAsString());
+
+        Assertions.assertEquals(blocking, reactive);
+    }
+
+    @Test
+    public void findByIdShouldReturnNotFoundWhenIdDoesNotExist() throws Exception {
+        mockMvc.perform(asyncDispatch(perform(get("/reactive/products/{id}", 1000L))))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void findAllCategoriesShouldReturnSameListAsBlockingApi() throws Exception {
+        JsonNode reactive = json(perform(get("/reactive/categories")));
+        JsonNode blocking = objectMapper.readTree(mockMvc.perform(get("/categories"))
+                .andReturn().getResponse().getContentAsString());
+
+        Assertions.assertEquals(blocking, reactive);
+    }
+
+    private MvcResult perform(MockHttpServletRequestBuilder builder) throws Exception {
+        return mockMvc.perform(builder)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+    }
+
+    private JsonNode json(MvcResult result) throws Exception {
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$").exists())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body);
+    }
+}
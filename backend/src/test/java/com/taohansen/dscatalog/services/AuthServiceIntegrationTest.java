@@ -0,0 +1,154 @@
+package com.taohansen.dscatalog.services;
+
+import com.taohansen.dscatalog.dto.EmailDTO;
+import com.taohansen.dscatalog.dto.NewPasswordDTO;
+import com.taohansen.dscatalog.entities.EmailOutbox;
+import com.taohansen.dscatalog.entities.PasswordRecover;
+import com.taohansen.dscatalog.repositories.EmailOutboxRepository;
+import com.taohansen.dscatalog.repositories.PasswordRecoverRepository;
+import com.taohansen.dscatalog.repositories.UserRepository;
+import com.taohansen.dscatalog.services.exceptions.ResourceNotFoundException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+@SpringBootTest
+@Transactional
+public class AuthServiceIntegrationTest {
+
+    private static final Pattern TOKEN = Pattern.compile("[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}");
+
+    @Autowired
+    private AuthService service;
+
+    @Autowired
+    private PasswordRecoverPurgeService purgeService;
+
+    @Autowired
+    private PasswordRecoverRepository repository;
+
+    @Autowired
+    private EmailOutboxRepository outboxRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private UserDetailsCache userDetailsCache;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void createRecoverTokenShouldStoreOnlyTokenHash() {
+        String token = createToken();
+
+        List<PasswordRecover> rows = repository.findAll();
+        Assertions.assertEquals(1, rows.size());
+        Assertions.assertEquals(64, rows.get(0).getTokenHash().length());
+        Assertions.assertNotEquals(token, rows.get(0).getTokenHash());
+        Assertions.assertFalse(rows.get(0).getTokenHash().contains(token.replace("-", "")));
+    }
+
+    @Test
+    public void saveNewPasswordShouldAcceptTokenOnlyOnce() {
+        String token = createToken();
+
+        service.saveNewPassword(new NewPasswordDTO(token, "newpassword"));
+
+        Assertions.assertTrue(passwordEncoder.matches("newpassword", userRepository.findByEmail("maria@gmail.com").getPassword()));
+        Assertions.assertThrows(ResourceNotFoundException.class,
+                () -> service.saveNewPassword(new NewPasswordDTO(token, "otherpassword")));
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void saveNewPasswordShouldAcceptTokenOnceWhenUsedConcurrently() throws Exception {
+        String originalHash = userRepository.findByEmail("maria@gmail.com").getPassword();
+        String token = createToken();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                String password = "newpassword" + i;
+                results.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        service.saveNewPassword(new NewPasswordDTO(token, password));
+                        return true;
+                    } catch (ResourceNotFoundException e) {
+                        return false;
+                    }
+                }));
+            }
+            start.countDown();
+
+            int accepted = 0;
+            for (Future<Boolean> result : results) {
+                accepted += result.get(30, TimeUnit.SECONDS) ? 1 : 0;
+            }
+            Assertions.assertEquals(1, accepted);
+        } finally {
+            executor.shutdownNow();
+            jdbcTemplate.update("UPDATE tb_user SET password = ? WHERE email = ?", originalHash, "maria@gmail.com");
+            userDetailsCache.evict("maria@gmail.com");
+            repository.deleteAll();
+        }
+    }
+
+    @Test
+    public void saveNewPasswordShouldThrowResourceNotFoundExceptionWhenTokenIsUnknownOrExpired() {
+        String token = createToken();
+        repository.findAll().forEach(row -> row.setExpiration(Instant.now().minusSeconds(1)));
+
+        Assertions.assertThrows(ResourceNotFoundException.class,
+                () -> service.saveNewPassword(new NewPasswordDTO(token, "newpassword")));
+        Assertions.assertThrows(ResourceNotFoundException.class,
+                () -> service.saveNewPassword(new NewPasswordDTO("unknown", "newpassword")));
+    }
+
+    @Test
+    public void purgeShouldDeleteExpiredAndUsedTokensInBatches() {
+        String used = createToken();
+        service.saveNewPassword(new NewPasswordDTO(used, "newpassword"));
+        createToken();
+        List<PasswordRecover> expired = new ArrayList<>();
+        for (int i = 0; i < 2500; i++) {
+            expired.add(new PasswordRecover(null, String.format("%064d", i), "maria@gmail.com", Instant.now().minusSeconds(60)));
+        }
+        repository.saveAll(expired);
+
+        Assertions.assertEquals(2501, purgeService.purge());
+        Assertions.assertEquals(1, repository.count());
+    }
+
+    private String createToken() {
+        long queued = outboxRepository.count();
+        service.createRecoverToken(new EmailDTO("maria@gmail.com"));
+        List<EmailOutbox> emails = outboxRepository.findAll();
+        Assertions.assertEquals(queued + 1, emails.size());
+        Matcher matcher = TOKEN.matcher(emails.get(emails.size() - 1).getBody());
+        Assertions.assertTrue(matcher.find());
+        return matcher.group();
+    }
+}
@@ -0,0 +1,157 @@
+package com.taohansen.dscatalog.services;
+
+import com.jayway.jsonpath.JsonPath;
+import com.taohansen.dscatalog.config.RotatingJwkSource;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.server.authorization.config.annotation.web.configuration.OAuth2AuthorizationServerConfiguration;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:jwkdb",
+        "catalog.security.jwk.encryption.password=test-password",
+        "catalog.security.jwk.encryption.salt=5c0744940b5c369b"
+})
+@AutoConfigureMockMvc
+public class JwkKeyServiceIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwkKeyService service;
+
+    @Autowired
+    private RotatingJwkSource jwkSource;
+
+    @Autowired
+    private JwtDecoder jwtDecoder;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${security.client-id}")
+    private String clientId;
+
+    @Value("${security.client-secret}")
+    private String clientSecret;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM tb_jwk_key");
+        jwkSource.refresh();
+    }
+
+    @Test
+    public void keysShouldBeStoredEncrypted() {
+        String jwk = jdbcTemplate.queryForObject("SELECT jwk FROM tb_jwk_key", String.class);
+
+        Assertions.assertFalse(jwk.contains("\"kty\""));
+        Assertions.assertTrue(service.load().get(0).isPrivate());
+    }
+
+    @Test
+    public void rotateShouldDoNothingBeforeRotationInterval() {
+        Assertions.assertFalse(service.rotate());
+        Assertions.assertEquals(1, service.load().size());
+    }
+
+    @Test
+    public void tokensSignedBeforeRotationShouldStillVerify() throws Exception {
+        String before = token();
+        String oldKid = jwtDecoder.decode(before).getHeaders().get("kid").toString();
+
+        ageSigningKey();
+        Assertions.assertTrue(service.rotate());
+        jwkSource.refresh();
+        String after = token();
+
+        Assertions.assertNotEquals(oldKid, jwtDecoder.decode(after).getHeaders().get("kid"));
+        Assertions.assertEquals(oldKid, jwtDecoder.decode(before).getHeaders().get("kid"));
+        Assertions.assertEquals(2, service.load().size());
+    }
+
+    @Test
+    public void anotherNodeShouldVerifyTokensOfThisNode() throws Exception {
+        JwtDecoder otherNode = OAuth2AuthorizationServerConfiguration.jwtDecoder(
+                new RotatingJwkSource(service::load, Duration.ofMinutes(5)));
+
+        Assertions.assertEquals(clientId, otherNode.decode(token()).getSubject());
+    }
+
+    @Test
+    public void rotateShouldDeleteKeysPastVerificationWindow() {
+        ageSigningKey();
+        service.rotate();
+        jdbcTemplate.update("UPDATE tb_jwk_key SET expires_at = ? WHERE expires_at IS NOT NULL",
+                Timestamp.from(Instant.now().minusSeconds(1)));
+
+        Assertions.assertFalse(service.rotate());
+        Assertions.assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM tb_jwk_key", Integer.class));
+    }
+
+    @Test
+    public void nodesStartingTogetherShouldShareOneFirstKey() throws Exception {
+        jdbcTemplate.update("DELETE FROM tb_jwk_key");
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<String>> signingKids = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                signingKids.add(executor.submit(() -> {
+                    start.await();
+                    return service.load().get(0).getKeyID();
+                }));
+            }
+            start.countDown();
+
+            Set<String> kids = new HashSet<>();
+            for (Future<String> kid : signingKids) {
+                kids.add(kid.get(30, TimeUnit.SECONDS));
+            }
+            Assertions.assertEquals(1, kids.size());
+            Assertions.assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM tb_jwk_key", Integer.class));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void ageSigningKey() {
+        jdbcTemplate.update("UPDATE tb_jwk_key SET created_at = ?", Timestamp.from(Instant.now().minus(Duration.ofDays(60))));
+    }
+
+    private String token() throws Exception {
+        String body = mockMvc.perform(post("/oauth2/token")
+                        .with(httpBasic(clientId, clientSecret))
+                        .param("grant_type", "password")
+                        .param("username", "maria@gmail.com")
+                        .param("password", "123456"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return JsonPath.read(body, "$.access_token");
+    }
+}
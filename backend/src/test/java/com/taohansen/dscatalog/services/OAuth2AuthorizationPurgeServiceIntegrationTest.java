@@ -0,0 +1,91 @@
+package com.taohansen.dscatalog.services;
+
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.oauth2.server.authorization.OAuth2Authorization;
+import org.springframework.security.oauth2.server.authorization.OAuth2AuthorizationService;
+import org.springframework.security.oauth2.server.authorization.OAuth2TokenType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:authorizationdb",
+        "catalog.security.authorization.store=jdbc"
+})
+@AutoConfigureMockMvc
+public class OAuth2AuthorizationPurgeServiceIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private OAuth2AuthorizationService authorizationService;
+
+    @Autowired
+    private OAuth2AuthorizationPurgeService purgeService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${security.client-id}")
+    private String clientId;
+
+    @Value("${security.client-secret}")
+    private String clientSecret;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM oauth2_authorization");
+    }
+
+    @Test
+    public void tokenShouldBeStoredAndFoundByValue() throws Exception {
+        String accessToken = token("maria@gmail.com");
+
+        OAuth2Authorization authorization = authorizationService.findByToken(accessToken, OAuth2TokenType.ACCESS_TOKEN);
+
+        Assertions.assertNotNull(authorization);
+        Assertions.assertEquals(clientId, authorization.getRegisteredClientId());
+        Assertions.assertEquals(accessToken, authorization.getAccessToken().getToken().getTokenValue());
+        Assertions.assertEquals(authorization.getId(), authorizationService.findById(authorization.getId()).getId());
+    }
+
+    @Test
+    public void purgeShouldDeleteOnlyExpiredAuthorizations() throws Exception {
+        // distinct users: tokens of one user issued within the same second are identical
+        String expiredId = authorizationService.findByToken(token("alex@gmail.com"), OAuth2TokenType.ACCESS_TOKEN).getId();
+        String liveId = authorizationService.findByToken(token("maria@gmail.com"), OAuth2TokenType.ACCESS_TOKEN).getId();
+        jdbcTemplate.update("UPDATE oauth2_authorization SET access_token_expires_at = ? WHERE id = ?",
+                Timestamp.from(Instant.now().minus(Duration.ofMinutes(1))), expiredId);
+
+        Assertions.assertEquals(1, purgeService.purge());
+
+        Assertions.assertNull(authorizationService.findById(expiredId));
+        Assertions.assertNotNull(authorizationService.findById(liveId));
+    }
+
+    private String token(String username) throws Exception {
+        String body = mockMvc.perform(post("/oauth2/token")
+                        .with(httpBasic(clientId, clientSecret))
+                        .param("grant_type", "password")
+                        .param("username", username)
+                        .param("password", "123456"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return JsonPath.read(body, "$.access_token");
+    }
+}
@@ -0,0 +1,102 @@
+package com.taohansen.dscatalog.services;
+
+import com.taohansen.dscatalog.dto.ProductDTO;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@SpringBootTest
+public class ProductServiceCacheIntegrationTest {
+
+    @Autowired
+    private ProductService service;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Long existingId;
+    private ProductDTO original;
+    private Cache cache;
+
+    @BeforeEach
+    void setUp() {
+        existingId = 1L;
+        cache = cacheManager.getCache("products");
+        cache.clear();
+        original = copy(service.findById(existingId), null);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.update(existingId, original);
+    }
+
+    @Test
+    public void findByIdShouldServeSecondCallFromCacheAndRecordStats() {
+        double hits = cacheGets("hit");
+
+        ProductDTO first = service.findById(existingId);
+        ProductDTO second = service.findById(existingId);
+
+        Assertions.assertSame(first, second);
+        Assertions.assertEquals(hits + 2, cacheGets("hit"));
+        Assertions.assertTrue(cacheGets("miss") >= 1);
+    }
+
+    @Test
+    public void findByIdShouldNotReturnStaleProductAfterUpdate() {
+        service.findById(existingId);
+
+        service.update(existingId, copy(original, "Renamed Product"));
+
+        Assertions.assertEquals("Renamed Product", service.findById(existingId).getName());
+    }
+
+    @Test
+    public void updateShouldEvictOnlyAfterCommit() {
+        service.findById(existingId);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            service.update(existingId, copy(original, "Renamed Product"));
+            Assertions.assertNotNull(cache.get(existingId));
+        });
+
+        Assertions.assertNull(cache.get(existingId));
+    }
+
+    @Test
+    public void updateShouldKeepCachedProductWhenTransactionRollsBack() {
+        service.findById(existingId);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            service.update(existingId, copy(original, "Renamed Product"));
+            status.setRollbackOnly();
+        });
+
+        Assertions.assertEquals(original.getName(), service.findById(existingId).getName());
+    }
+
+    private double cacheGets(String result) {
+        return meterRegistry.get("cache.gets").tag("cache", "products").tag("result", result).functionCounter().count();
+    }
+
+    private static ProductDTO copy(ProductDTO dto, String name) {
+        ProductDTO result = new ProductDTO(dto.getId(), name == null ? dto.getName() : name, dto.getDescription(),
+                dto.getPrice(), dto.getImgUrl(), dto.getDate());
+        result.getCategories().addAll(dto.getCategories());
+        return result;
+    }
+}
@@ -1,8 +1,10 @@
 package com.taohansen.dscatalog.services;
 
+import com.taohansen.dscatalog.dto.CategoryFacetDTO;
 import com.taohansen.dscatalog.dto.ProductDTO;
 import com.taohansen.dscatalog.repositories.ProductRepository;
 import com.taohansen.dscatalog.services.exceptions.ResourceNotFoundException;
+import com.taohansen.dscatalog.services.search.CategoryFilter;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -13,6 +15,8 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
+
 @SpringBootTest
 @Transactional
 public class ProductServiceIntegrationTest {
@@ -37,7 +41,7 @@ public class ProductServiceIntegrationTest {
     @Test
     public void findAllPAgedShouldReturnPageWhenPage0Size10() {
         PageRequest pageRequest = PageRequest.of(0, 5);
-        Page<ProductDTO> result = service.findAllPaged(pageRequest);
+        Page<ProductDTO> result = service.findAllPaged("", CategoryFilter.EMPTY, pageRequest);
         Assertions.assertEquals(0, result.getNumber());
         Assertions.assertEquals(5, result.getSize());
         Assertions.assertEquals(countTotalProducts, result.getTotalElements());
@@ -46,7 +50,7 @@ public class ProductServiceIntegrationTest {
     @Test
     public void findAllPagedShouldReturnEmptyPageWhenPageDoesntExist() {
         PageRequest pageRequest = PageRequest.of(50, 10);
-        Page<ProductDTO> result = service.findAllPaged(pageRequest);
+        Page<ProductDTO> result = service.findAllPaged("", CategoryFilter.EMPTY, pageRequest);
 
         Assertions.assertTrue(result.isEmpty());
     }
@@ -54,12 +58,46 @@ public class ProductServiceIntegrationTest {
     @Test
     public void findAllPagedShouldReturnSortedPageWhenSortByName() {
         PageRequest pageRequest = PageRequest.of(0, 10, Sort.by("name"));
-        Page<ProductDTO> result = service.findAllPaged(pageRequest);
+        Page<ProductDTO> result = service.findAllPaged("", CategoryFilter.EMPTY, pageRequest);
         Assertions.assertEquals("Macbook Pro", result.getContent().get(0).getName());
         Assertions.assertEquals("PC Gamer", result.getContent().get(1).getName());
         Assertions.assertEquals("PC Gamer Alfa", result.getContent().get(2).getName());
     }
 
+    @Test
+    public void findAllPagedShouldReturnEveryCategoryWhenFilteringByOneCategory() {
+        PageRequest pageRequest = PageRequest.of(0, 10);
+        Page<ProductDTO> result = service.findAllPaged("", CategoryFilter.parse("1", "", ""), pageRequest);
+
+        Assertions.assertEquals(1, result.getTotalElements());
+        ProductDTO dto = result.getContent().get(0);
+        ProductDTO expected = service.findById(dto.getId());
+        Assertions.assertEquals("Smart TV", dto.getName());
+        Assertions.assertEquals(expected.getDate(), dto.getDate());
+        Assertions.assertEquals(expected.getDescription(), dto.getDescription());
+        Assertions.assertEquals(2, dto.getCategories().size());
+    }
+
+    @Test
+    public void findAllPagedShouldReturnTotalWhenPageIsPastTheEnd() {
+        PageRequest pageRequest = PageRequest.of(50, 10);
+        Page<ProductDTO> result = service.findAllPaged("", CategoryFilter.EMPTY, pageRequest);
+
+        Assertions.assertEquals(countTotalProducts, result.getTotalElements());
+    }
+
+    @Test
+    public void findCategoryFacetsShouldMatchFilteredTotalsWhenFilteringByName() {
+        List<CategoryFacetDTO> facets = service.findCategoryFacets("gamer");
+
+        Assertions.assertEquals(3, facets.size());
+        for (CategoryFacetDTO facet : facets) {
+            CategoryFilter filter = CategoryFilter.parse(facet.getId().toString(), "", "");
+            long expected = service.findAllPaged("gamer", filter, PageRequest.of(0, 1)).getTotalElements();
+            Assertions.assertEquals(expected, facet.getCount());
+        }
+    }
+
     @Test
     public void deleteShouldDeleteResourceWhenIdExists(){
         service.delete(existingId);
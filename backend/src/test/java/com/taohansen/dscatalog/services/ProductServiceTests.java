@@ -5,8 +5,15 @@ import com.taohansen.dscatalog.entities.Category;
 import com.taohansen.dscatalog.entities.Product;
 import com.taohansen.dscatalog.repositories.CategoryRepository;
 import com.taohansen.dscatalog.repositories.ProductRepository;
+import com.taohansen.dscatalog.repositories.ProductViewRepository;
 import com.taohansen.dscatalog.services.exceptions.DatabaseException;
 import com.taohansen.dscatalog.services.exceptions.ResourceNotFoundException;
+import com.taohansen.dscatalog.services.search.CategoryBitmapIndex;
+import com.taohansen.dscatalog.services.search.CategoryFilter;
+import com.taohansen.dscatalog.services.search.ProductSearchCache;
+import com.taohansen.dscatalog.services.search.ProductSearchIndex;
+import com.taohansen.dscatalog.services.version.CatalogVersionService;
+import com.taohansen.dscatalog.services.view.ProductViewService;
 import com.taohansen.dscatalog.tests.Factory;
 import jakarta.persistence.EntityNotFoundException;
 import org.junit.jupiter.api.Assertions;
@@ -17,15 +24,16 @@ import org.mockito.ArgumentMatchers;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 @ExtendWith(SpringExtension.class)
 public class ProductServiceTests {
@@ -35,12 +43,25 @@ public class ProductServiceTests {
     @Mock
     private ProductRepository repository;
     @Mock
+    private ProductViewRepository viewRepository;
+    @Mock
+    private ProductViewService viewService;
+    @Mock
     private CategoryRepository categoryRepository;
+    @Mock
+    private ProductSearchIndex searchIndex;
+    @Mock
+    private CategoryBitmapIndex categoryIndex;
+    @Mock
+    private ProductSearchCache searchCache;
+    @Mock
+    private CatalogVersionService catalogVersion;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
 
     private Long existingId;
     private Long nonExistingId;
     private Long dependentId;
-    private PageImpl<Product> page;
     private Product product;
 
     @BeforeEach
@@ -49,21 +70,24 @@ public class ProductServiceTests {
         nonExistingId = 1000L;
         dependentId = 20L;
         product = Factory.createProduct();
-        page = new PageImpl<>(List.of(product));
 
         Mockito.when(repository.existsById(existingId)).thenReturn(true);
         Mockito.when(repository.existsById(nonExistingId)).thenReturn(false);
         Mockito.when(repository.existsById(dependentId)).thenReturn(true);
 
-        Mockito.when(repository.findAll((Pageable) ArgumentMatchers.any())).thenReturn(page);
+        Mockito.when(viewRepository.searchPage(ArgumentMatchers.anyBoolean(), ArgumentMatchers.any(), ArgumentMatchers.any(), ArgumentMatchers.any(),
+                ArgumentMatchers.any(), ArgumentMatchers.any(), ArgumentMatchers.any())).thenReturn(List.of(Factory.createProductProjection()));
+
+        Mockito.when(searchCache.get(ArgumentMatchers.any(), ArgumentMatchers.any(), ArgumentMatchers.any(), ArgumentMatchers.any(), ArgumentMatchers.any()))
+                .thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(4).get());
 
         Mockito.when(repository.save(ArgumentMatchers.any())).thenReturn(product);
 
         Mockito.when(repository.getReferenceById(existingId)).thenReturn(product);
         Mockito.doThrow(EntityNotFoundException.class).when(repository).getReferenceById(nonExistingId);
 
-        Mockito.when(repository.findById(existingId)).thenReturn(Optional.of(product));
-        Mockito.when(repository.findById(nonExistingId)).thenReturn(Optional.empty());
+        Mockito.when(viewRepository.findById(existingId)).thenReturn(Optional.of(Factory.createProductView()));
+        Mockito.when(viewRepository.findById(nonExistingId)).thenReturn(Optional.empty());
 
         Mockito.doNothing().when(repository).deleteById(existingId);
         Mockito.doThrow(DataIntegrityViolationException.class).when(repository).deleteById(dependentId);
@@ -88,10 +112,14 @@ public class ProductServiceTests {
     @Test
     public void findAllPagedShouldReturnPage() {
         Pageable pageable = PageRequest.of(0, 10);
-        Page<ProductDTO> result = service.findAllPaged(pageable);
+        Page<ProductDTO> result = service.findAllPaged("", CategoryFilter.EMPTY, pageable);
 
         Assertions.assertNotNull(result);
-        Mockito.verify(repository).findAll(pageable);
+        Assertions.assertEquals(1L, result.getTotalElements());
+        Assertions.assertEquals("Electronics", result.getContent().get(0).getCategories().get(0).getName());
+        Mockito.verify(viewRepository).searchPage(ArgumentMatchers.eq(false), ArgumentMatchers.any(), ArgumentMatchers.any(), ArgumentMatchers.any(),
+                ArgumentMatchers.any(), ArgumentMatchers.eq(""), ArgumentMatchers.eq(pageable));
+        Mockito.verifyNoInteractions(categoryIndex);
     }
 
     @Test
@@ -101,6 +129,7 @@ public class ProductServiceTests {
         ProductDTO result = service.update(existingId, dto);
         Assertions.assertNotNull(result);
         Assertions.assertEquals(UPDATED_NAME, result.getName());
+        Mockito.verify(viewService).refresh(List.of(existingId));
     }
 
     @Test
@@ -125,6 +154,7 @@ public class ProductServiceTests {
     public void deleteShouldDoNothingWhenIdExists() {
         Assertions.assertDoesNotThrow(() -> service.delete(existingId));
         Mockito.verify(repository, Mockito.times(1)).deleteById(existingId);
+        Mockito.verify(viewService).refresh(List.of(existingId));
     }
 
 }
@@ -0,0 +1,74 @@
+package com.taohansen.dscatalog.services;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+@SpringBootTest
+public class UserDetailsCacheIntegrationTest {
+
+    private static final String EMAIL = "maria@gmail.com";
+
+    @Autowired
+    private UserService service;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Statistics statistics;
+    private String originalHash;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        originalHash = jdbcTemplate.queryForObject("SELECT password FROM tb_user WHERE email = ?", String.class, EMAIL);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.updatePassword(service.loadUserByUsername(EMAIL), originalHash);
+    }
+
+    @Test
+    public void loadUserByUsernameShouldServeRepeatedLoadsFromCache() {
+        service.loadUserByUsername(EMAIL);
+        statistics.clear();
+
+        UserDetails user = service.loadUserByUsername(EMAIL);
+
+        Assertions.assertEquals(EMAIL, user.getUsername());
+        Assertions.assertEquals(originalHash, user.getPassword());
+        Assertions.assertEquals(2, user.getAuthorities().size());
+        Assertions.assertEquals(0L, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    public void updatePasswordShouldEvictCachedUser() {
+        UserDetails user = service.loadUserByUsername(EMAIL);
+
+        service.updatePassword(user, "{noop}changed");
+
+        Assertions.assertEquals("{noop}changed", service.loadUserByUsername(EMAIL).getPassword());
+    }
+
+    @Test
+    public void loadUserByUsernameShouldNotCacheUnknownEmail() {
+        Assertions.assertThrows(UsernameNotFoundException.class, () -> service.loadUserByUsername("nobody@gmail.com"));
+        statistics.clear();
+
+        Assertions.assertThrows(UsernameNotFoundException.class, () -> service.loadUserByUsername("nobody@gmail.com"));
+        Assertions.assertTrue(statistics.getPrepareStatementCount() > 0);
+    }
+}
@@ -0,0 +1,80 @@
+package com.taohansen.dscatalog.services.json;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.taohansen.dscatalog.dto.ProductDTO;
+import com.taohansen.dscatalog.services.ProductService;
+import com.taohansen.dscatalog.services.version.ResourceVersion;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+@SpringBootTest
+public class ProductJsonCacheIntegrationTest {
+
+    @Autowired
+    private ProductJsonCache jsonCache;
+
+    @Autowired
+    private ProductService service;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    public void getShouldReturnCachedBytesUntilProductIsUpdated() throws Exception {
+        Long id = 2L;
+        ProductJson first = jsonCache.get(id, service.findVersion(id), () -> service.findById(id));
+        Assertions.assertSame(first, jsonCache.get(id, service.findVersion(id), () -> Assertions.fail("loaded twice")));
+
+        ProductDTO original = service.findById(id);
+        ProductDTO renamed = objectMapper.readValue(first.json(), ProductDTO.class);
+        renamed.setName("Smart TV 2");
+        service.update(id, renamed);
+        try {
+            ProductJson updated = jsonCache.get(id, service.findVersion(id), () -> service.findById(id));
+            Assertions.assertEquals("Smart TV 2", objectMapper.readValue(updated.json(), ProductDTO.class).getName());
+            Assertions.assertEquals(service.findVersion(id).tag(), updated.tag());
+        } finally {
+            service.update(id, original);
+        }
+    }
+
+    @Test
+    public void getShouldReloadWhenCachedUnderAnotherVersion() throws Exception {
+        Long id = 4L;
+        ResourceVersion version = service.findVersion(id);
+        jsonCache.get(id, new ResourceVersion(version.tag() + "-old", version.lastModified()), () -> service.findById(id));
+
+        ProductJson json = jsonCache.get(id, version, () -> service.findById(id));
+
+        Assertions.assertEquals(version.tag(), json.tag());
+        Assertions.assertSame(json, jsonCache.get(id, version, () -> Assertions.fail("loaded twice")));
+    }
+
+    @Test
+    public void fragmentsShouldNotFillTheCacheFromThePage() throws Exception {
+        Long id = 5L;
+        ProductDTO stale = objectMapper.readValue(objectMapper.writeValueAsBytes(service.findById(id)), ProductDTO.class);
+        stale.setName("Stale name");
+        jsonCache.fragments(new PageImpl<>(List.of(stale), PageRequest.of(0, 12), 1));
+
+        ProductJson json = jsonCache.get(id, service.findVersion(id), () -> service.findById(id));
+
+        Assertions.assertFalse(new String(json.json(), StandardCharsets.UTF_8).contains("Stale name"));
+    }
+
+    @Test
+    public void fragmentsShouldSerializeLikeTheProducts() throws Exception {
+        ProductDTO product = service.findById(3L);
+        PageImpl<ProductDTO> page = new PageImpl<>(List.of(product), PageRequest.of(0, 12), 1);
+
+        Assertions.assertEquals(objectMapper.readTree(objectMapper.writeValueAsBytes(page)),
+                objectMapper.readTree(objectMapper.writeValueAsBytes(jsonCache.fragments(page))));
+    }
+}
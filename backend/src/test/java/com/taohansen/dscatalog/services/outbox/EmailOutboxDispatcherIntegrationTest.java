@@ -0,0 +1,143 @@
+package com.taohansen.dscatalog.services.outbox;
+
+import com.icegreen.greenmail.configuration.GreenMailConfiguration;
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import com.taohansen.dscatalog.dto.EmailDTO;
+import com.taohansen.dscatalog.entities.EmailOutbox;
+import com.taohansen.dscatalog.repositories.EmailOutboxRepository;
+import com.taohansen.dscatalog.repositories.PasswordRecoverRepository;
+import com.taohansen.dscatalog.services.AuthService;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.function.Predicate;
+
+import static org.awaitility.Awaitility.await;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:outboxdb",
+        "spring.mail.host=localhost",
+        "spring.mail.port=3025",
+        "spring.mail.properties.mail.smtp.auth=false",
+        "spring.mail.properties.mail.smtp.starttls.enable=false",
+        "catalog.email.outbox.poll-interval=1h",
+        "catalog.email.outbox.max-attempts=2"
+})
+@AutoConfigureMockMvc
+public class EmailOutboxDispatcherIntegrationTest {
+
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP)
+            .withConfiguration(GreenMailConfiguration.aConfig().withDisabledAuthentication());
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private EmailOutboxDispatcher dispatcher;
+
+    @Autowired
+    private EmailOutboxRepository repository;
+
+    @Autowired
+    private PasswordRecoverRepository passwordRecoverRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @AfterEach
+    void tearDown() {
+        repository.deleteAll();
+        passwordRecoverRepository.deleteAll();
+    }
+
+    @Test
+    public void recoverTokenShouldQueueEmailAndDeliverItAfterCommit() throws Exception {
+        mockMvc.perform(post("/auth/recover-token")
+                        .content("{\"email\": \"maria@gmail.com\"}")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNoContent());
+
+        Assertions.assertTrue(greenMail.waitForIncomingEmail(5000, 1));
+        MimeMessage message = greenMail.getReceivedMessages()[0];
+        Assertions.assertEquals("maria@gmail.com", message.getAllRecipients()[0].toString());
+        Assertions.assertEquals("Recuperação de senha", message.getSubject());
+
+        EmailOutbox email = awaitSingle(e -> e.getStatus() == EmailOutbox.Status.SENT);
+        Assertions.assertEquals(0, email.getAttempts());
+        Assertions.assertNotNull(email.getSentAt());
+    }
+
+    @Test
+    public void smtpFailureShouldKeepTokenAndRetryWithBackoff() {
+        greenMail.stop();
+
+        authService.createRecoverToken(new EmailDTO("maria@gmail.com"));
+
+        Assertions.assertEquals(1, passwordRecoverRepository.count());
+        EmailOutbox email = awaitSingle(e -> e.getAttempts() == 1);
+        Assertions.assertEquals(EmailOutbox.Status.PENDING, email.getStatus());
+        Assertions.assertNotNull(email.getLastError());
+        Assertions.assertTrue(email.getNextAttemptAt().isAfter(Instant.now()));
+        Assertions.assertEquals(0, dispatcher.drain());
+
+        greenMail.start();
+        makeDue(email.getId());
+        awaitDrain(1);
+
+        Assertions.assertEquals(1, greenMail.getReceivedMessages().length);
+        email = repository.findById(email.getId()).orElseThrow();
+        Assertions.assertEquals(EmailOutbox.Status.SENT, email.getStatus());
+        Assertions.assertNull(email.getLastError());
+    }
+
+    @Test
+    public void dispatcherShouldGiveUpAfterMaxAttempts() {
+        greenMail.stop();
+
+        authService.createRecoverToken(new EmailDTO("maria@gmail.com"));
+        EmailOutbox email = awaitSingle(e -> e.getAttempts() == 1);
+
+        makeDue(email.getId());
+        awaitDrain(1);
+
+        email = repository.findById(email.getId()).orElseThrow();
+        Assertions.assertEquals(EmailOutbox.Status.FAILED, email.getStatus());
+        Assertions.assertEquals(2, email.getAttempts());
+        makeDue(email.getId());
+        Assertions.assertEquals(0, dispatcher.drain());
+    }
+
+    private EmailOutbox awaitSingle(Predicate<EmailOutbox> condition) {
+        return await().atMost(Duration.ofSeconds(10))
+                .until(() -> repository.findAll().stream().filter(condition).findFirst().orElse(null), e -> e != null);
+    }
+
+    private void makeDue(Long id) {
+        transactionTemplate.executeWithoutResult(status ->
+                repository.findById(id).orElseThrow().setNextAttemptAt(Instant.now()));
+    }
+
+    // the drain triggered by the commit may still hold the dispatcher, and a connect racing the restarted server
+    // may wait for the whole SMTP connection timeout
+    private void awaitDrain(int expected) {
+        await().atMost(Duration.ofSeconds(15)).until(() -> dispatcher.drain() == expected);
+    }
+}
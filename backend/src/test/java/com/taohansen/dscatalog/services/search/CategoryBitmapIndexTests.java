@@ -0,0 +1,124 @@
+package com.taohansen.dscatalog.services.search;
+
+import com.taohansen.dscatalog.entities.Category;
+import com.taohansen.dscatalog.entities.Product;
+import com.taohansen.dscatalog.repositories.ProductRepository;
+import com.taohansen.dscatalog.services.events.ProductChangedEvent;
+import com.taohansen.dscatalog.services.events.ProductsInsertedEvent;
+import com.taohansen.dscatalog.tests.Factory;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.List;
+import java.util.Map;
+
+@ExtendWith(SpringExtension.class)
+public class CategoryBitmapIndexTests {
+
+    @InjectMocks
+    private CategoryBitmapIndex index;
+
+    @Mock
+    private ProductRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        Mockito.when(repository.searchProductCategories()).thenReturn(List.of(
+                Factory.createProductCategoryProjection(1L, 1L),
+                Factory.createProductCategoryProjection(1L, 2L),
+                Factory.createProductCategoryProjection(2L, 2L),
+                Factory.createProductCategoryProjection(3L, 3L),
+                Factory.createProductCategoryProjection(4L, 2L),
+                Factory.createProductCategoryProjection(4L, 3L),
+                Factory.createProductCategoryProjection(5L, null)));
+    }
+
+    @Test
+    public void selectShouldReturnUnionWhenAnyOfIsGiven() {
+        Assertions.assertEquals(RoaringBitmap.bitmapOf(1, 3, 4), index.select(CategoryFilter.parse("1,3", "", "")));
+    }
+
+    @Test
+    public void selectShouldReturnIntersectionWhenAllOfIsGiven() {
+        Assertions.assertEquals(RoaringBitmap.bitmapOf(4), index.select(CategoryFilter.parse("0", "2,3", "")));
+        Assertions.assertEquals(RoaringBitmap.bitmapOf(), index.select(CategoryFilter.parse("0", "1,3", "")));
+    }
+
+    @Test
+    public void selectShouldSubtractNoneOfFromEveryCategorizedProduct() {
+        Assertions.assertEquals(RoaringBitmap.bitmapOf(2), index.select(CategoryFilter.parse("0", "", "1,3")));
+        Assertions.assertEquals(RoaringBitmap.bitmapOf(1), index.select(CategoryFilter.parse("1,3", "2", "3")));
+    }
+
+    @Test
+    public void selectShouldReturnEmptyWhenCategoryDoesNotExist() {
+        Assertions.assertTrue(index.select(CategoryFilter.parse("99", "", "")).isEmpty());
+    }
+
+    @Test
+    public void selectShouldNotModifyIndexBitmaps() {
+        index.select(CategoryFilter.parse("2", "3", "1"));
+
+        Assertions.assertEquals(RoaringBitmap.bitmapOf(1, 2, 4), index.select(CategoryFilter.parse("2", "", "")));
+    }
+
+    @Test
+    public void selectShouldReturnNullWhenMoreProductsThanMaxIdsMatch() {
+        Assertions.assertNull(index.select(CategoryFilter.parse("2", "", ""), 2));
+        Assertions.assertNull(index.select(CategoryFilter.parse("0", "", "1"), 2));
+        Assertions.assertEquals(RoaringBitmap.bitmapOf(2, 3, 4), index.select(CategoryFilter.parse("0", "", "1"), 3));
+        Assertions.assertEquals(RoaringBitmap.bitmapOf(4), index.select(CategoryFilter.parse("0", "3,2", ""), 1));
+    }
+
+    @Test
+    public void countByCategoryShouldCountOnlyGivenProducts() {
+        Assertions.assertEquals(Map.of(1L, 1L, 2L, 3L, 3L, 2L), index.countByCategory(null));
+        Assertions.assertEquals(Map.of(1L, 0L, 2L, 1L, 3L, 2L), index.countByCategory(RoaringBitmap.bitmapOf(3, 4, 5)));
+    }
+
+    @Test
+    public void onProductChangedShouldMoveProductBetweenCategories() {
+        index.rebuild();
+        Product product = Factory.createProduct();
+        product.setId(2L);
+        product.getCategories().clear();
+        product.getCategories().add(new Category(3L, null));
+
+        index.onProductChanged(ProductChangedEvent.saved(product));
+
+        Assertions.assertEquals(RoaringBitmap.bitmapOf(1, 4), index.select(CategoryFilter.parse("2", "", "")));
+        Assertions.assertEquals(RoaringBitmap.bitmapOf(2, 3, 4), index.select(CategoryFilter.parse("3", "", "")));
+
+        index.onProductChanged(ProductChangedEvent.deleted(3L));
+
+        Assertions.assertEquals(RoaringBitmap.bitmapOf(2, 4), index.select(CategoryFilter.parse("3", "", "")));
+        Mockito.verify(repository, Mockito.times(1)).searchProductCategories();
+    }
+
+    @Test
+    public void onProductsInsertedShouldAddEveryProductOfTheBatch() {
+        index.rebuild();
+        Product first = Factory.createProduct();
+        first.setId(6L);
+        first.getCategories().clear();
+        first.getCategories().add(new Category(3L, null));
+        Product second = Factory.createProduct();
+        second.setId(7L);
+        second.getCategories().clear();
+        second.getCategories().add(new Category(2L, null));
+        second.getCategories().add(new Category(9L, null));
+
+        index.onProductsInserted(new ProductsInsertedEvent(List.of(first, second)));
+
+        Assertions.assertEquals(RoaringBitmap.bitmapOf(1, 2, 4, 7), index.select(CategoryFilter.parse("2", "", "")));
+        Assertions.assertEquals(RoaringBitmap.bitmapOf(3, 4, 6), index.select(CategoryFilter.parse("3", "", "")));
+        Assertions.assertEquals(RoaringBitmap.bitmapOf(7), index.select(CategoryFilter.parse("9", "", "")));
+    }
+}
@@ -0,0 +1,66 @@
+package com.taohansen.dscatalog.services.search;
+
+import com.taohansen.dscatalog.dto.CursorPageDTO;
+import com.taohansen.dscatalog.dto.ProductDTO;
+import com.taohansen.dscatalog.services.ProductService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+
+/**
+ * With no room for candidate ids, every category filter is evaluated by the database; the results must match the
+ * bitmap index.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:categoryfilterdb",
+        "catalog.search.bitmap.max-ids=0"})
+public class CategoryFilterSqlIntegrationTest {
+
+    private static final List<CategoryFilter> FILTERS = List.of(
+            CategoryFilter.parse("1", "", ""),
+            CategoryFilter.parse("2,3", "", ""),
+            CategoryFilter.parse("0", "1,3", ""),
+            CategoryFilter.parse("0", "", "2"),
+            CategoryFilter.parse("2,3", "", "3"),
+            CategoryFilter.parse("1,3", "3", "2"));
+
+    @Autowired
+    private ProductService service;
+
+    @Autowired
+    private CategoryBitmapIndex categoryIndex;
+
+    @Test
+    public void findAllPagedShouldMatchBitmapIndexWhenDatabaseEvaluatesFilter() {
+        PageRequest pageRequest = PageRequest.of(0, 100, Sort.by("id"));
+        for (CategoryFilter filter : FILTERS) {
+            List<Long> expected = expected(filter);
+
+            Assertions.assertEquals(expected, ids(service.findAllPaged("", filter, pageRequest).getContent()));
+            Assertions.assertEquals(expected, ids(service.findAllPaged("", filter, ProductFields.parse("id,name"), pageRequest).getContent()));
+        }
+    }
+
+    @Test
+    public void findAllPagedByCursorShouldMatchBitmapIndexWhenDatabaseEvaluatesFilter() {
+        PageRequest pageRequest = PageRequest.of(0, 100, Sort.by("name"));
+        for (CategoryFilter filter : FILTERS) {
+            CursorPageDTO<ProductDTO> page = service.findAllPaged("", filter, "", pageRequest);
+
+            Assertions.assertEquals(expected(filter), ids(page.getContent()).stream().sorted().toList());
+        }
+    }
+
+    private List<Long> expected(CategoryFilter filter) {
+        return categoryIndex.select(filter).stream().mapToObj(Long::valueOf).toList();
+    }
+
+    private static List<Long> ids(List<ProductDTO> products) {
+        return products.stream().map(ProductDTO::getId).toList();
+    }
+}
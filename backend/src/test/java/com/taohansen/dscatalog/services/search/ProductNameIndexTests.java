@@ -0,0 +1,138 @@
+package com.taohansen.dscatalog.services.search;
+
+import com.taohansen.dscatalog.entities.Category;
+import com.taohansen.dscatalog.entities.Product;
+import com.taohansen.dscatalog.projections.ProductCategoryProjection;
+import com.taohansen.dscatalog.repositories.ProductRepository;
+import com.taohansen.dscatalog.services.events.ProductChangedEvent;
+import com.taohansen.dscatalog.services.events.ProductsInsertedEvent;
+import com.taohansen.dscatalog.tests.Factory;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.List;
+
+@ExtendWith(SpringExtension.class)
+public class ProductNameIndexTests {
+
+    @InjectMocks
+    private ProductNameIndex index;
+
+    @Mock
+    private ProductRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        Mockito.when(repository.searchProductCategories()).thenReturn(List.of(
+                row(1L, "PC Gamer", 3L),
+                row(1L, "PC Gamer", 1L),
+                row(2L, "PC Gamer Alfa", 3L),
+                row(3L, "PC Gamer Boo", 3L),
+                row(4L, "Rails for Dummies", 2L),
+                row(5L, "The Lord of the Rings", 2L),
+                row(6L, "Uncategorized Gadget", null)));
+        index.rebuild();
+    }
+
+    @Test
+    public void suggestShouldRankNameStartsBeforeLaterWords() {
+        Product product = Factory.createProduct();
+        product.setId(7L);
+        product.setName("Another Rails Book");
+        product.getCategories().clear();
+        product.getCategories().add(new Category(2L, null));
+
+        index.onProductChanged(ProductChangedEvent.saved(product));
+
+        Assertions.assertEquals(List.of("Rails for Dummies", "Another Rails Book"), index.suggest("rails", 10));
+    }
+
+    @Test
+    public void suggestShouldReturnEmptyWithoutLoadingWhenIndexIsNotReady() {
+        ProductNameIndex notReady = new ProductNameIndex();
+
+        Assertions.assertTrue(notReady.suggest("pc", 10).isEmpty());
+    }
+
+    @Test
+    public void suggestShouldReturnNamesInAlphabeticalOrderWhenPrefixMatchesNameStart() {
+        Assertions.assertEquals(List.of("PC Gamer", "PC Gamer Alfa"), index.suggest("pc ga", 2));
+    }
+
+    @Test
+    public void suggestShouldMatchAnyWordStart() {
+        Assertions.assertEquals(List.of("Rails for Dummies", "The Lord of the Rings"), index.suggest(" R", 10));
+        Assertions.assertEquals(List.of("PC Gamer Boo"), index.suggest("boo", 10));
+    }
+
+    @Test
+    public void suggestShouldReturnEmptyWhenPrefixIsBlankOrUnknown() {
+        Assertions.assertTrue(index.suggest("", 10).isEmpty());
+        Assertions.assertTrue(index.suggest("xyz", 10).isEmpty());
+        Assertions.assertTrue(index.suggest("gadget", 10).isEmpty());
+    }
+
+    @Test
+    public void onProductChangedShouldReplaceAndRemoveNames() {
+        Product product = Factory.createProduct();
+        product.setId(2L);
+        product.setName("Notebook Alfa");
+        product.getCategories().clear();
+        product.getCategories().add(new Category(3L, null));
+
+        index.onProductChanged(ProductChangedEvent.saved(product));
+        index.onProductChanged(ProductChangedEvent.deleted(3L));
+
+        Assertions.assertEquals(List.of("PC Gamer"), index.suggest("pc", 10));
+        Assertions.assertEquals(List.of("Notebook Alfa"), index.suggest("alfa", 10));
+        Mockito.verify(repository, Mockito.times(1)).searchProductCategories();
+    }
+
+    @Test
+    public void onProductsInsertedShouldMergeCategorizedNamesIntoOrder() {
+        index.onProductsInserted(new ProductsInsertedEvent(List.of(
+                product(8L, "PC Gamer Zeta", 3L),
+                product(9L, "Notebook Gamer", 1L),
+                product(10L, "PC Gamer Hidden", null))));
+
+        Assertions.assertEquals(List.of("PC Gamer", "PC Gamer Alfa", "PC Gamer Boo", "PC Gamer Zeta"), index.suggest("pc", 10));
+        Assertions.assertEquals(List.of("PC Gamer", "Notebook Gamer"), index.suggest("gamer", 2));
+        Assertions.assertEquals(List.of("Rails for Dummies", "The Lord of the Rings"), index.suggest("r", 10));
+    }
+
+    private static Product product(Long id, String name, Long categoryId) {
+        Product product = Factory.createProduct();
+        product.setId(id);
+        product.setName(name);
+        product.getCategories().clear();
+        if (categoryId != null) {
+            product.getCategories().add(new Category(categoryId, null));
+        }
+        return product;
+    }
+
+    private static ProductCategoryProjection row(Long id, String name, Long categoryId) {
+        return new ProductCategoryProjection() {
+            @Override
+            public Long getCategoryId() {
+                return categoryId;
+            }
+
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public String getName() {
+                return name;
+            }
+        };
+    }
+}
@@ -0,0 +1,107 @@
+package com.taohansen.dscatalog.services.search;
+
+import com.taohansen.dscatalog.dto.CategoryDTO;
+import com.taohansen.dscatalog.dto.ProductDTO;
+import com.taohansen.dscatalog.services.ProductService;
+import com.taohansen.dscatalog.tests.Factory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+@SpringBootTest
+public class ProductSearchCacheIntegrationTest {
+
+    @Autowired
+    private ProductService service;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private PageRequest pageRequest;
+    private Long insertedId;
+
+    @BeforeEach
+    void setUp() {
+        pageRequest = PageRequest.of(0, 10, Sort.by("name"));
+        cacheManager.getCache("productSearch").clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (insertedId != null) {
+            service.delete(insertedId);
+        }
+    }
+
+    @Test
+    public void findAllPagedShouldServeRepeatedQueryFromCache() {
+        Page<ProductDTO> first = service.findAllPaged("gamer", CategoryFilter.EMPTY, pageRequest);
+        Page<ProductDTO> second = service.findAllPaged("GAMER", CategoryFilter.EMPTY, pageRequest);
+
+        Assertions.assertSame(first, second);
+        Assertions.assertTrue(meterRegistry.get("catalog.search.cache.hit.ratio").gauge().value() > 0);
+    }
+
+    @Test
+    public void insertShouldEvictOnlyEntriesMatchingTheProduct() {
+        Page<ProductDTO> books = service.findAllPaged("", CategoryFilter.parse("2", "", ""), pageRequest);
+        Page<ProductDTO> computers = service.findAllPaged("", CategoryFilter.parse("3", "", ""), pageRequest);
+        Page<ProductDTO> gamers = service.findAllPaged("gamer", CategoryFilter.EMPTY, pageRequest);
+        double evictions = meterRegistry.get("catalog.search.cache.invalidations").summary().totalAmount();
+
+        insertedId = service.insert(product("A Cached Book", 2L)).getId();
+
+        Assertions.assertEquals(1, meterRegistry.get("catalog.search.cache.invalidations").summary().totalAmount() - evictions);
+        Page<ProductDTO> booksAfter = service.findAllPaged("", CategoryFilter.parse("2", "", ""), pageRequest);
+        Assertions.assertEquals(books.getTotalElements() + 1, booksAfter.getTotalElements());
+        Assertions.assertEquals("A Cached Book", booksAfter.getContent().get(0).getName());
+        Assertions.assertSame(computers, service.findAllPaged("", CategoryFilter.parse("3", "", ""), pageRequest));
+        Assertions.assertSame(gamers, service.findAllPaged("gamer", CategoryFilter.EMPTY, pageRequest));
+    }
+
+    @Test
+    public void updateShouldEvictEntriesMatchingPreviousState() {
+        insertedId = service.insert(product("Gamer Chair", 2L)).getId();
+        Page<ProductDTO> gamers = service.findAllPaged("gamer", CategoryFilter.EMPTY, pageRequest);
+        Page<ProductDTO> chairs = service.findAllPaged("chair", CategoryFilter.EMPTY, pageRequest);
+        Page<ProductDTO> tv = service.findAllPaged("tv", CategoryFilter.EMPTY, pageRequest);
+
+        service.update(insertedId, product("Office Chair", 2L));
+
+        Assertions.assertEquals(gamers.getTotalElements() - 1,
+                service.findAllPaged("gamer", CategoryFilter.EMPTY, pageRequest).getTotalElements());
+        Assertions.assertNotSame(chairs, service.findAllPaged("chair", CategoryFilter.EMPTY, pageRequest));
+        Assertions.assertSame(tv, service.findAllPaged("tv", CategoryFilter.EMPTY, pageRequest));
+    }
+
+    @Test
+    public void deleteShouldEvictEntriesThatContainedTheProduct() {
+        insertedId = service.insert(product("Gamer Desk", 3L)).getId();
+        Page<ProductDTO> before = service.findAllPaged("gamer", CategoryFilter.EMPTY, pageRequest);
+
+        service.delete(insertedId);
+        insertedId = null;
+
+        Assertions.assertEquals(before.getTotalElements() - 1,
+                service.findAllPaged("gamer", CategoryFilter.EMPTY, pageRequest).getTotalElements());
+    }
+
+    private static ProductDTO product(String name, Long categoryId) {
+        ProductDTO dto = Factory.createProductDTO(name);
+        dto.setId(null);
+        dto.getCategories().clear();
+        dto.getCategories().add(new CategoryDTO(categoryId, null));
+        return dto;
+    }
+}
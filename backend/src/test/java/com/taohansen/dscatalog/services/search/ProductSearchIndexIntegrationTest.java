@@ -0,0 +1,101 @@
+package com.taohansen.dscatalog.services.search;
+
+import com.taohansen.dscatalog.dto.CategoryDTO;
+import com.taohansen.dscatalog.dto.CategoryFacetDTO;
+import com.taohansen.dscatalog.dto.ProductDTO;
+import com.taohansen.dscatalog.projections.CategoryCountProjection;
+import com.taohansen.dscatalog.projections.ProductProjection;
+import com.taohansen.dscatalog.repositories.ProductRepository;
+import com.taohansen.dscatalog.services.ProductService;
+import com.taohansen.dscatalog.tests.Factory;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+@SpringBootTest(properties = {
+        "catalog.search.index.enabled=true",
+        "catalog.search.index.collation=binary"})
+public class ProductSearchIndexIntegrationTest {
+
+    @Autowired
+    private ProductSearchIndex index;
+
+    @Autowired
+    private CategoryBitmapIndex categoryIndex;
+
+    @Autowired
+    private ProductRepository repository;
+
+    @Autowired
+    private ProductService service;
+
+    @Test
+    public void searchShouldMatchNativeQueryWhenFilteringByName() {
+        assertSameResult("gamer", List.of(), PageRequest.of(1, 5, Sort.by("name")));
+        assertSameResult("GAMER t", List.of(), PageRequest.of(0, 10, Sort.by("name")));
+        assertSameResult("pc", List.of(), PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "id")));
+        assertSameResult("xyz", List.of(), PageRequest.of(0, 10, Sort.by("name")));
+    }
+
+    @Test
+    public void searchShouldMatchNativeQueryWhenFilteringByCategory() {
+        assertSameResult("o", List.of(2L), PageRequest.of(0, 10, Sort.by("name")));
+        assertSameResult("a", List.of(1L, 2L), PageRequest.of(0, 10, Sort.by("name")));
+    }
+
+    @Test
+    public void supportsShouldLeaveEmptyNameToTheDatabase() {
+        Assertions.assertFalse(index.supports("", PageRequest.of(0, 10, Sort.by("name"))));
+        Assertions.assertTrue(index.supports("pc", PageRequest.of(0, 10, Sort.by("name"))));
+    }
+
+    @Test
+    public void findCategoryFacetsShouldMatchNativeQueryWhenNameIsIndexed() {
+        Map<Long, Long> expected = repository.countByCategory("gamer").stream()
+                .collect(Collectors.toMap(CategoryCountProjection::getCategoryId, CategoryCountProjection::getTotal));
+
+        for (CategoryFacetDTO facet : service.findCategoryFacets("gamer")) {
+            Assertions.assertEquals(expected.getOrDefault(facet.getId(), 0L), facet.getCount());
+        }
+    }
+
+    @Test
+    public void searchShouldReflectInsertUpdateAndDelete() {
+        ProductDTO dto = Factory.createProductDTO("Indexed Widget");
+        dto.setId(null);
+        dto.getCategories().clear();
+        dto.getCategories().add(new CategoryDTO(2L, null));
+        ProductDTO inserted = service.insert(dto);
+
+        Assertions.assertEquals(1, index.search("widget", null, PageRequest.of(0, 10)).getTotalElements());
+
+        dto.setName("Renamed Gadget");
+        service.update(inserted.getId(), dto);
+        Assertions.assertEquals(0, index.search("widget", null, PageRequest.of(0, 10)).getTotalElements());
+        Assertions.assertEquals(1, index.search("gadget", categoryIndex.select(CategoryFilter.parse("2", "", "")), PageRequest.of(0, 10)).getTotalElements());
+
+        service.delete(inserted.getId());
+        Assertions.assertEquals(0, index.search("gadget", null, PageRequest.of(0, 10)).getTotalElements());
+    }
+
+    private void assertSameResult(String name, List<Long> categoryIds, Pageable pageable) {
+        Assertions.assertTrue(index.supports(name, pageable));
+        Page<ProductProjection> expected = repository.searchProducts(categoryIds, name, pageable);
+        RoaringBitmap candidates = categoryIds.isEmpty() ? null
+                : categoryIndex.select(CategoryFilter.parse(categoryIds.stream().map(String::valueOf).collect(Collectors.joining(",")), "", ""));
+        Page<ProductProjection> actual = index.search(name, candidates, pageable);
+
+        Assertions.assertEquals(expected.getTotalElements(), actual.getTotalElements());
+        Assertions.assertEquals(expected.map(ProductProjection::getId).toList(), actual.map(ProductProjection::getId).toList());
+    }
+}
@@ -0,0 +1,44 @@
+package com.taohansen.dscatalog.services.view;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+@SpringBootTest
+@Transactional
+public class ProductViewServiceIntegrationTest {
+
+    @Autowired
+    private ProductViewService service;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void rebuildIfStaleShouldRebuildWhenProductWasUpdatedBehindTheView() {
+        jdbcTemplate.update("UPDATE tb_product SET name = 'Changed', updated_at = CURRENT_TIMESTAMP WHERE id = 1");
+
+        service.rebuildIfStale();
+
+        Assertions.assertEquals("Changed", viewName(1L));
+    }
+
+    @Test
+    public void rebuildIfStaleShouldRebuildWhenRowsWereReplacedBehindTheView() {
+        jdbcTemplate.update("DELETE FROM tb_product_category WHERE product_id = 25");
+        jdbcTemplate.update("DELETE FROM tb_product WHERE id = 25");
+        jdbcTemplate.update("INSERT INTO tb_product (id, name, price, description) VALUES (1000, 'Replacement', 10.0, 'New')");
+
+        service.rebuildIfStale();
+
+        Assertions.assertEquals("Replacement", viewName(1000L));
+        Assertions.assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM tb_product_view WHERE id = 25", Integer.class));
+    }
+
+    private String viewName(Long id) {
+        return jdbcTemplate.queryForObject("SELECT name FROM tb_product_view WHERE id = ?", String.class, id);
+    }
+}
@@ -3,6 +3,9 @@ package com.taohansen.dscatalog.tests;
 import com.taohansen.dscatalog.dto.ProductDTO;
 import com.taohansen.dscatalog.entities.Category;
 import com.taohansen.dscatalog.entities.Product;
+import com.taohansen.dscatalog.entities.ProductView;
+import com.taohansen.dscatalog.projections.ProductCategoryProjection;
+import com.taohansen.dscatalog.projections.ProductSearchProjection;
 
 import java.time.Instant;
 
@@ -23,4 +26,74 @@ public class Factory {
         product.setName(name);
         return new ProductDTO(product, product.getCategories());
     }
+
+    public static ProductView createProductView() {
+        Product product = createProduct();
+        return new ProductView(product.getId(), product.getName(), product.getDescription(), product.getPrice(),
+                product.getImgUrl(), product.getDate(), "1\u001FElectronics");
+    }
+
+    public static ProductSearchProjection createProductProjection() {
+        Product product = createProduct();
+        return new ProductSearchProjection() {
+            @Override
+            public Long getId() {
+                return product.getId();
+            }
+
+            @Override
+            public String getName() {
+                return product.getName();
+            }
+
+            @Override
+            public String getDescription() {
+                return product.getDescription();
+            }
+
+            @Override
+            public Double getPrice() {
+                return product.getPrice();
+            }
+
+            @Override
+            public String getImgUrl() {
+                return product.getImgUrl();
+            }
+
+            @Override
+            public Instant getDate() {
+                return product.getDate();
+            }
+
+            @Override
+            public Long getTotal() {
+                return 1L;
+            }
+
+            @Override
+            public String getCategories() {
+                return "1" + (char) 31 + "Electronics";
+            }
+        };
+    }
+
+    public static ProductCategoryProjection createProductCategoryProjection(Long id, Long categoryId) {
+        return new ProductCategoryProjection() {
+            @Override
+            public Long getCategoryId() {
+                return categoryId;
+            }
+
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public String getName() {
+                return "Product " + id;
+            }
+        };
+    }
 }